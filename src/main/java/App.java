@@ -1,11 +1,15 @@
 import com.formdev.flatlaf.FlatLightLaf;
 import ui.AppFrame;
+import util.MetricsPublisher;
+import util.PortfolioValueCompactor;
 
 import javax.swing.*;
 
 public class App {
     public static void main(String[] args) {
         FlatLightLaf.setup();
+        PortfolioValueCompactor.start();
+        MetricsPublisher.start();
         SwingUtilities.invokeLater(() -> new AppFrame().setVisible(true));
     }
 }
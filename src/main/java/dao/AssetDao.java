@@ -1,6 +1,7 @@
 package dao;
 
 import model.Asset;
+import model.MarketType;
 import util.DatabaseUtil;
 
 import java.sql.*;
@@ -13,8 +14,11 @@ public class AssetDao {
         List<Asset> list = new ArrayList<>();
 
         String sql = """
-            SELECT id, market_id, symbol, name, currency, yahoo_symbol
-            FROM assets
+            SELECT a.id, a.market_id, a.symbol, a.name, a.currency, a.yahoo_symbol,
+                   m.code AS market_code
+            FROM assets a
+            LEFT JOIN markets m ON m.id = a.market_id
+            ORDER BY a.id
         """;
 
         try (Connection conn = DatabaseUtil.getConnection();
@@ -29,6 +33,7 @@ public class AssetDao {
                 a.setName(rs.getString("name"));
                 a.setCurrency(rs.getString("currency"));
                 a.setYahooSymbol(rs.getString("yahoo_symbol"));
+                a.setMarket(marketOf(rs.getString("market_code")));
                 list.add(a);
             }
 
@@ -37,4 +42,42 @@ public class AssetDao {
         }
         return list;
     }
+
+    /**
+     * Varlıklarda kullanılan para birimlerini döner (büyük harf, tekrarsız).
+     */
+    public List<String> findDistinctCurrencies() {
+        List<String> list = new ArrayList<>();
+
+        String sql = """
+            SELECT DISTINCT UPPER(currency) AS currency
+            FROM assets
+            WHERE currency IS NOT NULL AND currency <> ''
+        """;
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                list.add(rs.getString("currency"));
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
+    /**
+     * Piyasa kodunu MarketType'a çevirir; bilinmeyen veya boş kodda null döner.
+     */
+    private static MarketType marketOf(String code) {
+        if (code == null) return null;
+        try {
+            return MarketType.valueOf(code);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,92 @@
+package dao;
+
+import util.DatabaseUtil;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FxRateDao {
+
+    /**
+     * Bir döviz kuru gözlemi: 1 base = rate quote
+     */
+    public record FxRate(
+            String baseCurrency,
+            String quoteCurrency,
+            double rate,
+            String source,
+            LocalDateTime rateTime
+    ) {}
+
+    /**
+     * Kurları tek transaction içinde toplu olarak kaydeder.
+     * @return Başarılıysa true
+     */
+    public boolean insertBatch(List<FxRate> rates) {
+        if (rates.isEmpty()) return true;
+
+        String sql = """
+            INSERT INTO fx_rates_history (base_currency, quote_currency, rate, source, rate_time)
+            VALUES (?, ?, ?, ?, ?)
+        """;
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (FxRate r : rates) {
+                    ps.setString(1, r.baseCurrency());
+                    ps.setString(2, r.quoteCurrency());
+                    ps.setDouble(3, r.rate());
+                    ps.setString(4, r.source());
+                    ps.setTimestamp(5, Timestamp.valueOf(r.rateTime()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Verilen karşı para birimi için her baz para biriminin son kurunu döner.
+     * @param quoteCurrency Karşı para birimi (örn: TRY)
+     * @return baz para birimi -> kur
+     */
+    public Map<String, Double> findLatestRates(String quoteCurrency) {
+        String sql = """
+            SELECT DISTINCT ON (base_currency) base_currency, rate
+            FROM fx_rates_history
+            WHERE quote_currency = ?
+            ORDER BY base_currency, rate_time DESC, id DESC
+        """;
+
+        Map<String, Double> rates = new HashMap<>();
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, quoteCurrency);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rates.put(rs.getString("base_currency"), rs.getDouble("rate"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,81 @@
+package dao;
+
+import util.DatabaseUtil;
+
+import java.sql.*;
+import java.util.List;
+
+public class OhlcDao {
+
+    // Tek executeBatch çağrısında gönderilecek en fazla satır
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Bir varlığın dakikalık mumları. Diziler paralel ve aynı uzunluktadır;
+     * zamanlar epoch saniyesi olarak mumun başlangıcıdır.
+     */
+    public record CandleSeries(
+            int assetId,
+            long[] epochSeconds,
+            double[] open,
+            double[] high,
+            double[] low,
+            double[] close,
+            long[] volume
+    ) {
+        public int size() {
+            return epochSeconds.length;
+        }
+    }
+
+    /**
+     * Mumları tek transaction içinde toplu olarak kaydeder.
+     * Zaten kayıtlı olan (asset_id, bar_time) satırları yoksayılır.
+     * @return Başarılıysa true
+     */
+    public boolean insertBatch(List<CandleSeries> series) {
+        if (series.isEmpty()) return true;
+
+        String sql = """
+            INSERT INTO ohlc_1m (asset_id, bar_time, open, high, low, close, volume)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (asset_id, bar_time) DO NOTHING
+        """;
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int pending = 0;
+                for (CandleSeries s : series) {
+                    for (int i = 0; i < s.size(); i++) {
+                        ps.setInt(1, s.assetId());
+                        ps.setTimestamp(2, new Timestamp(s.epochSeconds()[i] * 1000L));
+                        ps.setDouble(3, s.open()[i]);
+                        ps.setDouble(4, s.high()[i]);
+                        ps.setDouble(5, s.low()[i]);
+                        ps.setDouble(6, s.close()[i]);
+                        ps.setLong(7, s.volume()[i]);
+                        ps.addBatch();
+                        if (++pending == BATCH_SIZE) {
+                            ps.executeBatch();
+                            pending = 0;
+                        }
+                    }
+                }
+                if (pending > 0) {
+                    ps.executeBatch();
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
@@ -15,32 +15,35 @@ public class PortfolioDao {
         public final String symbol;
         public final String name;
         public final String market;
+        public final String currency;
         public final double quantity;
         public final double avgCost;
 
-        public PortfolioRow(int assetId, String symbol, String name, String market, double quantity, double avgCost) {
+        public PortfolioRow(int assetId, String symbol, String name, String market, String currency, double quantity, double avgCost) {
             this.assetId = assetId;
             this.symbol = symbol;
             this.name = name;
             this.market = market;
+            this.currency = currency;
             this.quantity = quantity;
             this.avgCost = avgCost;
         }
     }
+    /**
+     * Kullanıcının açık pozisyonlarını döner. Değerler positions tablosundan okunur;
+     * sorgu maliyeti işlem sayısına değil pozisyon sayısına bağlıdır.
+     */
     public List<PortfolioRow> getPortfolioSummary(int userId) {
         String sql =
-                "SELECT a.id AS asset_id, a.symbol, a.name, m.code AS market_code, " +
-                        "       SUM(CASE WHEN t.trade_type='BUY' THEN t.quantity ELSE -t.quantity END) AS net_qty, " +
-                        "       CASE WHEN SUM(CASE WHEN t.trade_type='BUY' THEN t.quantity ELSE 0 END) = 0 THEN 0 " +
-                        "            ELSE SUM(CASE WHEN t.trade_type='BUY' THEN t.quantity*t.price ELSE 0 END) / " +
-                        "                 SUM(CASE WHEN t.trade_type='BUY' THEN t.quantity ELSE 0 END) " +
+                "SELECT a.id AS asset_id, a.symbol, a.name, m.code AS market_code, a.currency, " +
+                        "       p.net_qty, " +
+                        "       CASE WHEN p.buy_qty = 0 THEN 0 " +
+                        "            ELSE p.buy_notional / p.buy_qty " +
                         "       END AS avg_cost " +
-                        "FROM trades t " +
-                        "JOIN assets a  ON a.id = t.asset_id " +
+                        "FROM positions p " +
+                        "JOIN assets a  ON a.id = p.asset_id " +
                         "JOIN markets m ON m.id = a.market_id " +
-                        "WHERE t.user_id = ? " +
-                        "GROUP BY a.id, a.symbol, a.name, m.code " +
-                        "HAVING SUM(CASE WHEN t.trade_type='BUY' THEN t.quantity ELSE -t.quantity END) <> 0 " +
+                        "WHERE p.user_id = ? AND p.net_qty <> 0 " +
                         "ORDER BY m.code, a.symbol";
 
         List<PortfolioRow> list = new ArrayList<>();
@@ -57,6 +60,7 @@ public class PortfolioDao {
                             rs.getString("symbol"),
                             rs.getString("name"),
                             rs.getString("market_code"),
+                            rs.getString("currency"),
                             rs.getDouble("net_qty"),
                             rs.getDouble("avg_cost")
                     ));
@@ -4,13 +4,44 @@ import util.DatabaseUtil;
 
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
 public class PortfolioValueDao {
 
     /**
-     * PortfolioValue kaydı için record sınıfı
+     * Portföy değeri serisinin okunabileceği katmanlar.
+     * RAW: ham kayıtlar (son 24 saat), HOURLY: saat başına son değer, DAILY: gün başına son değer.
+     */
+    public enum Resolution {
+        RAW,
+        HOURLY,
+        DAILY;
+
+        /**
+         * Verilen aralık için uygun katmanı seçer: ham kayıtların tutulduğu süreye sığan aralıklar
+         * ham, bir haftaya kadar saatlik, daha uzunları günlük katmandan okunur.
+         */
+        public static Resolution forRange(LocalDateTime from, LocalDateTime to) {
+            if (from == null) return DAILY;
+            LocalDateTime end = to != null ? to : LocalDateTime.now();
+            long hours = java.time.Duration.between(from, end).toHours();
+            if (!from.isBefore(LocalDateTime.now().minusHours(RAW_RETENTION_HOURS))) return RAW;
+            if (hours <= 7 * 24) return HOURLY;
+            return DAILY;
+        }
+    }
+
+    // Ham kayıtların saklanma süresi; daha eskileri saatlik katmana sıkıştırılır (-Dportfolio.values.rawRetentionHours)
+    public static final int RAW_RETENTION_HOURS = Integer.getInteger("portfolio.values.rawRetentionHours", 24);
+
+    // Ham kayıtlar okunurken tek sorguda alınacak en fazla satır (keyset sayfalama)
+    private static final int PAGE_SIZE = 5_000;
+
+    /**
+     * PortfolioValue kaydı için record sınıfı.
+     * Özet katmanlardan okunan kayıtlarda id 0'dır ve calculatedAt dilimin başlangıcıdır.
      */
     public record PortfolioValue(
             int id,
@@ -21,13 +52,24 @@ public class PortfolioValueDao {
 
     /**
      * Kullanıcının portföy toplam değerini kaydeder.
+     * Günlük katman aynı ifade içinde güncellenir (günün son değeri).
      * @param userId Kullanıcı ID
      * @param totalValue Toplam portföy değeri (TL cinsinden)
      */
     public void insert(int userId, double totalValue) {
         String sql = """
-            INSERT INTO portfolio_values (user_id, total_value, calculated_at)
-            VALUES (?, ?, now())
+            WITH ins AS (
+                INSERT INTO portfolio_values (user_id, total_value, calculated_at)
+                VALUES (?, ?, now())
+                RETURNING user_id, total_value, calculated_at
+            )
+            INSERT INTO portfolio_value_rollups (user_id, resolution, bucket_start, total_value, last_at)
+            SELECT user_id, 'DAILY', date_trunc('day', calculated_at), total_value, calculated_at
+            FROM ins
+            ON CONFLICT (user_id, resolution, bucket_start) DO UPDATE
+            SET total_value = EXCLUDED.total_value,
+                last_at     = EXCLUDED.last_at
+            WHERE EXCLUDED.last_at >= portfolio_value_rollups.last_at
         """;
 
         try (Connection conn = DatabaseUtil.getConnection();
@@ -79,55 +121,69 @@ public class PortfolioValueDao {
     }
 
     /**
-     * Kullanıcının belirli bir tarih aralığındaki portföy değerlerini döner.
-     * Grafik için kullanılır.
+     * Kullanıcının belirli bir tarih aralığındaki ham portföy değerlerini döner.
+     * Uzun geçmişler PAGE_SIZE'lık sayfalar halinde (calculated_at, id) üzerinden keyset
+     * sayfalama ile okunur; sonuç tarihe göre artan sıradadır.
      * @param userId Kullanıcı ID
-     * @param from Başlangıç tarihi (null ise tüm kayıtlar)
-     * @param to Bitiş tarihi (null ise tüm kayıtlar)
+     * @param from Başlangıç tarihi (null ise alt sınır yok)
+     * @param to Bitiş tarihi (null ise üst sınır yok)
      * @return PortfolioValue listesi, tarihe göre artan sırada
      */
     public List<PortfolioValue> listByUser(int userId, LocalDateTime from, LocalDateTime to) {
-        String sql = """
+        List<PortfolioValue> list = new ArrayList<>();
+
+        List<PortfolioValue> page = listPage(userId, from, to, null, 0, PAGE_SIZE);
+        while (true) {
+            list.addAll(page);
+            if (page.size() < PAGE_SIZE) break;
+            PortfolioValue last = page.get(page.size() - 1);
+            page = listPage(userId, from, to, last.calculatedAt(), last.id(), PAGE_SIZE);
+        }
+        return list;
+    }
+
+    /**
+     * Ham portföy değerlerinin bir sayfasını döner (keyset sayfalama).
+     * İlk sayfa için afterCalculatedAt null verilir; sonraki sayfalar için bir önceki sayfanın
+     * son kaydının calculatedAt ve id değerleri verilir.
+     * @param userId Kullanıcı ID
+     * @param from Başlangıç tarihi (null ise alt sınır yok)
+     * @param to Bitiş tarihi (null ise üst sınır yok)
+     * @param afterCalculatedAt Bu kayıttan sonrası okunur (null ise baştan)
+     * @param afterId afterCalculatedAt ile aynı zamana sahip kayıtlar arasında sıralama için id
+     * @param limit Sayfa boyutu
+     * @return PortfolioValue listesi, tarihe göre artan sırada
+     */
+    public List<PortfolioValue> listPage(int userId, LocalDateTime from, LocalDateTime to,
+                                         LocalDateTime afterCalculatedAt, int afterId, int limit) {
+        // Her sınır kombinasyonu için ayrı ifade: "? IS NULL OR ..." kalıbı planlayıcının
+        // (user_id, calculated_at, id) indeksini kullanmasını engelliyor
+        StringBuilder sql = new StringBuilder("""
             SELECT id, user_id, total_value, calculated_at
             FROM portfolio_values
             WHERE user_id = ?
-            AND (? IS NULL OR calculated_at >= ?)
-            AND (? IS NULL OR calculated_at <= ?)
-            ORDER BY calculated_at ASC, id ASC
-        """;
+            """);
+        if (from != null) sql.append(" AND calculated_at >= ?");
+        if (to != null) sql.append(" AND calculated_at <= ?");
+        if (afterCalculatedAt != null) sql.append(" AND (calculated_at, id) > (?, ?)");
+        sql.append(" ORDER BY calculated_at ASC, id ASC LIMIT ?");
 
         List<PortfolioValue> list = new ArrayList<>();
 
         try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
 
-            ps.setInt(1, userId);
-            if (from != null) {
-                ps.setTimestamp(2, Timestamp.valueOf(from));
-                ps.setTimestamp(3, Timestamp.valueOf(from));
-            } else {
-                ps.setNull(2, Types.TIMESTAMP);
-                ps.setNull(3, Types.TIMESTAMP);
-            }
-            if (to != null) {
-                ps.setTimestamp(4, Timestamp.valueOf(to));
-                ps.setTimestamp(5, Timestamp.valueOf(to));
-            } else {
-                ps.setNull(4, Types.TIMESTAMP);
-                ps.setNull(5, Types.TIMESTAMP);
+            int i = 1;
+            ps.setInt(i++, userId);
+            if (from != null) ps.setTimestamp(i++, Timestamp.valueOf(from));
+            if (to != null) ps.setTimestamp(i++, Timestamp.valueOf(to));
+            if (afterCalculatedAt != null) {
+                ps.setTimestamp(i++, Timestamp.valueOf(afterCalculatedAt));
+                ps.setInt(i++, afterId);
             }
+            ps.setInt(i, limit);
 
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Timestamp ts = rs.getTimestamp("calculated_at");
-                    list.add(new PortfolioValue(
-                            rs.getInt("id"),
-                            rs.getInt("user_id"),
-                            rs.getDouble("total_value"),
-                            ts != null ? ts.toLocalDateTime() : LocalDateTime.now()
-                    ));
-                }
-            }
+            readValues(ps, list);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -135,18 +191,179 @@ public class PortfolioValueDao {
     }
 
     /**
-     * Kullanıcının son N gün içindeki portföy değerlerini döner.
+     * Kullanıcının son N gün içindeki portföy değerlerini, aralığa uygun katmandan döner.
      * @param userId Kullanıcı ID
      * @param days Son kaç gün (örn: 30 = son 30 gün)
      * @return PortfolioValue listesi, tarihe göre artan sırada
      */
     public List<PortfolioValue> getLastNDays(int userId, int days) {
         LocalDateTime from = LocalDateTime.now().minusDays(days);
-        return listByUser(userId, from, null);
+        return listForRange(userId, from, null);
+    }
+
+    /**
+     * Kullanıcının belirli bir tarih aralığındaki portföy değerlerini, aralığa uygun katmandan döner.
+     * @see Resolution#forRange(LocalDateTime, LocalDateTime)
+     */
+    public List<PortfolioValue> listForRange(int userId, LocalDateTime from, LocalDateTime to) {
+        return listByUser(userId, from, to, Resolution.forRange(from, to));
+    }
+
+    /**
+     * Kullanıcının belirli bir tarih aralığındaki portföy değerlerini istenen katmandan döner.
+     * Saatlik katman, henüz sıkıştırılmamış son 24 saatin ham kayıtlarını da saat başına
+     * son değer olarak içerir.
+     * @param userId Kullanıcı ID
+     * @param from Başlangıç tarihi (null ise alt sınır yok)
+     * @param to Bitiş tarihi (null ise üst sınır yok)
+     * @return PortfolioValue listesi, tarihe göre artan sırada
+     */
+    public List<PortfolioValue> listByUser(int userId, LocalDateTime from, LocalDateTime to, Resolution resolution) {
+        if (resolution == Resolution.RAW) {
+            return listByUser(userId, from, to);
+        }
+
+        StringBuilder sql = new StringBuilder();
+        // Bağlama sırası: user_id, rollupParams, [user_id, rawParams]
+        List<Timestamp> rollupParams = new ArrayList<>(2);
+        List<Timestamp> rawParams = null;
+
+        if (resolution == Resolution.DAILY) {
+            sql.append("""
+                SELECT 0 AS id, user_id, total_value, bucket_start AS calculated_at
+                FROM portfolio_value_rollups
+                WHERE user_id = ? AND resolution = 'DAILY'
+                """);
+            if (from != null) {
+                sql.append(" AND bucket_start >= ?");
+                rollupParams.add(Timestamp.valueOf(from.truncatedTo(ChronoUnit.DAYS)));
+            }
+            if (to != null) {
+                sql.append(" AND bucket_start <= ?");
+                rollupParams.add(Timestamp.valueOf(to));
+            }
+            sql.append(" ORDER BY bucket_start ASC");
+        } else {
+            // Sınırlar her iki alt sorguya da ayrı ayrı uygulanır; böylece iki tarafta da indeks kullanılır
+            StringBuilder rollupWhere = new StringBuilder();
+            StringBuilder rawWhere = new StringBuilder();
+            rawParams = new ArrayList<>(2);
+            if (from != null) {
+                Timestamp fromHour = Timestamp.valueOf(from.truncatedTo(ChronoUnit.HOURS));
+                rollupWhere.append(" AND bucket_start >= ?");
+                rawWhere.append(" AND calculated_at >= ?");
+                rollupParams.add(fromHour);
+                rawParams.add(fromHour);
+            }
+            if (to != null) {
+                rollupWhere.append(" AND bucket_start <= ?");
+                rawWhere.append(" AND calculated_at < ?");
+                rollupParams.add(Timestamp.valueOf(to));
+                rawParams.add(Timestamp.valueOf(to.truncatedTo(ChronoUnit.HOURS).plusHours(1)));
+            }
+
+            sql.append("""
+                SELECT DISTINCT ON (bucket_start)
+                       0 AS id, user_id, total_value, bucket_start AS calculated_at
+                FROM (
+                    SELECT user_id, bucket_start, total_value, last_at
+                    FROM portfolio_value_rollups
+                    WHERE user_id = ? AND resolution = 'HOURLY'""").append(rollupWhere).append("""
+
+                    UNION ALL
+                    SELECT user_id, date_trunc('hour', calculated_at), total_value, calculated_at
+                    FROM portfolio_values
+                    WHERE user_id = ?""").append(rawWhere).append("""
+
+                ) t
+                ORDER BY bucket_start ASC, last_at DESC
+                """);
+        }
+
+        List<PortfolioValue> list = new ArrayList<>();
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            int i = 1;
+            ps.setInt(i++, userId);
+            for (Timestamp p : rollupParams) {
+                ps.setTimestamp(i++, p);
+            }
+            if (rawParams != null) {
+                ps.setInt(i++, userId);
+                for (Timestamp p : rawParams) {
+                    ps.setTimestamp(i++, p);
+                }
+            }
+
+            readValues(ps, list);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
+    /**
+     * Ham kayıtları sıkıştırır: cutoff'tan eski kayıtlar saat başına son değer olarak saatlik
+     * katmana yazılır ve ham tablodan silinir. hourlyCutoff'tan eski saatlik kayıtlar da silinir
+     * (günlük katman saklanmaya devam eder). Tüm adımlar tek transaction içindedir.
+     * @param rawCutoff Bu zamandan eski ham kayıtlar sıkıştırılır
+     * @param hourlyCutoff Bu zamandan eski saatlik kayıtlar silinir; null ise silinmez
+     * @return [saatlik katmana yazılan, silinen ham, silinen saatlik] kayıt sayıları; hata olursa null
+     */
+    public int[] compact(LocalDateTime rawCutoff, LocalDateTime hourlyCutoff) {
+        String rollupSql = """
+            INSERT INTO portfolio_value_rollups (user_id, resolution, bucket_start, total_value, last_at)
+            SELECT DISTINCT ON (user_id, date_trunc('hour', calculated_at))
+                   user_id, 'HOURLY', date_trunc('hour', calculated_at), total_value, calculated_at
+            FROM portfolio_values
+            WHERE calculated_at < ?
+            ORDER BY user_id, date_trunc('hour', calculated_at), calculated_at DESC, id DESC
+            ON CONFLICT (user_id, resolution, bucket_start) DO UPDATE
+            SET total_value = EXCLUDED.total_value,
+                last_at     = EXCLUDED.last_at
+            WHERE EXCLUDED.last_at >= portfolio_value_rollups.last_at
+        """;
+        String deleteRawSql = "DELETE FROM portfolio_values WHERE calculated_at < ?";
+        String deleteHourlySql = "DELETE FROM portfolio_value_rollups WHERE resolution = 'HOURLY' AND bucket_start < ?";
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement rollup = conn.prepareStatement(rollupSql);
+                 PreparedStatement deleteRaw = conn.prepareStatement(deleteRawSql);
+                 PreparedStatement deleteHourly = conn.prepareStatement(deleteHourlySql)) {
+
+                Timestamp rawTs = Timestamp.valueOf(rawCutoff);
+                rollup.setTimestamp(1, rawTs);
+                int rolled = rollup.executeUpdate();
+
+                deleteRaw.setTimestamp(1, rawTs);
+                int rawDeleted = deleteRaw.executeUpdate();
+
+                int hourlyDeleted = 0;
+                if (hourlyCutoff != null) {
+                    deleteHourly.setTimestamp(1, Timestamp.valueOf(hourlyCutoff));
+                    hourlyDeleted = deleteHourly.executeUpdate();
+                }
+
+                conn.commit();
+                return new int[]{rolled, rawDeleted, hourlyDeleted};
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
     }
 
     /**
-     * Kullanıcının son K kaydını döner.
+     * Kullanıcının son K ham kaydını döner.
+     * Son K kayıt indeks üzerinden ters sırada seçilir, dış sorgu artan sıraya çevirir.
      * @param userId Kullanıcı ID
      * @param limit Son kaç kayıt (örn: 100 = son 100 kayıt)
      * @return PortfolioValue listesi, tarihe göre artan sırada
@@ -154,10 +371,14 @@ public class PortfolioValueDao {
     public List<PortfolioValue> getLastKRecords(int userId, int limit) {
         String sql = """
             SELECT id, user_id, total_value, calculated_at
-            FROM portfolio_values
-            WHERE user_id = ?
-            ORDER BY calculated_at DESC, id DESC
-            LIMIT ?
+            FROM (
+                SELECT id, user_id, total_value, calculated_at
+                FROM portfolio_values
+                WHERE user_id = ?
+                ORDER BY calculated_at DESC, id DESC
+                LIMIT ?
+            ) last_k
+            ORDER BY calculated_at ASC, id ASC
         """;
 
         List<PortfolioValue> list = new ArrayList<>();
@@ -168,24 +389,25 @@ public class PortfolioValueDao {
             ps.setInt(1, userId);
             ps.setInt(2, limit);
 
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Timestamp ts = rs.getTimestamp("calculated_at");
-                    list.add(new PortfolioValue(
-                            rs.getInt("id"),
-                            rs.getInt("user_id"),
-                            rs.getDouble("total_value"),
-                            ts != null ? ts.toLocalDateTime() : LocalDateTime.now()
-                    ));
-                }
-            }
+            readValues(ps, list);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        
-        // Sonuçları tarihe göre artan sırada döndür (grafik için)
-        list.sort((a, b) -> a.calculatedAt().compareTo(b.calculatedAt()));
         return list;
     }
+
+    private static void readValues(PreparedStatement ps, List<PortfolioValue> into) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Timestamp ts = rs.getTimestamp("calculated_at");
+                into.add(new PortfolioValue(
+                        rs.getInt("id"),
+                        rs.getInt("user_id"),
+                        rs.getDouble("total_value"),
+                        ts != null ? ts.toLocalDateTime() : LocalDateTime.now()
+                ));
+            }
+        }
+    }
 }
 
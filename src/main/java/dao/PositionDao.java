@@ -0,0 +1,178 @@
+package dao;
+
+import model.Trade;
+import model.TradeType;
+import util.DatabaseUtil;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * positions tablosu: trades tablosunun kullanıcı/varlık bazında özetlenmiş hali.
+ * Pozisyon okumaları işlem geçmişini yeniden toplamak yerine bu tablodan yapılır.
+ * Tablo, trades ile aynı transaction içinde TradeDao tarafından güncellenir;
+ * rebuild ve verify metotları tabloyu trades ile uzlaştırmak içindir.
+ */
+public class PositionDao {
+
+    // trades tablosundan pozisyonları hesaplayan ortak ifade (rebuild ve verify)
+    private static final String AGGREGATE_TRADES = """
+            SELECT user_id,
+                   asset_id,
+                   SUM(CASE WHEN trade_type = 'BUY'  THEN quantity
+                            WHEN trade_type = 'SELL' THEN -quantity
+                            ELSE 0 END) AS net_qty,
+                   SUM(CASE WHEN trade_type = 'BUY' THEN quantity ELSE 0 END) AS buy_qty,
+                   SUM(CASE WHEN trade_type = 'BUY' THEN quantity * price ELSE 0 END) AS buy_notional
+            FROM trades
+            """;
+
+    // verify sırasında kayan nokta farkları için tolerans
+    private static final double TOLERANCE = 1e-6;
+
+    /**
+     * trades ile positions arasındaki uyuşmazlık. Tarafların birinde kayıt yoksa değerleri 0'dır.
+     */
+    public record Mismatch(
+            int userId,
+            int assetId,
+            double expectedNetQty,
+            double actualNetQty,
+            double expectedBuyQty,
+            double actualBuyQty,
+            double expectedBuyNotional,
+            double actualBuyNotional
+    ) {}
+
+    /**
+     * Bir işlemi pozisyona uygular. Çağıranın transaction'ı içinde çalışır.
+     */
+    void applyTrade(Connection conn, Trade t) throws SQLException {
+        String sql = """
+            INSERT INTO positions(user_id, asset_id, net_qty, buy_qty, buy_notional, updated_at)
+            VALUES (?, ?, ?, ?, ?, now())
+            ON CONFLICT (user_id, asset_id) DO UPDATE
+            SET net_qty      = positions.net_qty      + EXCLUDED.net_qty,
+                buy_qty      = positions.buy_qty      + EXCLUDED.buy_qty,
+                buy_notional = positions.buy_notional + EXCLUDED.buy_notional,
+                updated_at   = now()
+        """;
+
+        boolean buy = t.getTradeType() == TradeType.BUY;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, t.getUserId());
+            ps.setInt(2, t.getAssetId());
+            ps.setDouble(3, buy ? t.getQuantity() : -t.getQuantity());
+            ps.setDouble(4, buy ? t.getQuantity() : 0.0);
+            ps.setDouble(5, buy ? t.getQuantity() * t.getPrice() : 0.0);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Kullanıcının bir varlıktaki pozisyonunu siler. Çağıranın transaction'ı içinde çalışır.
+     */
+    void delete(Connection conn, int userId, int assetId) throws SQLException {
+        String sql = "DELETE FROM positions WHERE user_id = ? AND asset_id = ?";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ps.setInt(2, assetId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Tüm pozisyonları trades tablosundan yeniden oluşturur.
+     * @return Oluşturulan pozisyon sayısı, hata olursa -1
+     */
+    public int rebuildAll() {
+        return rebuild(null);
+    }
+
+    /**
+     * Bir kullanıcının pozisyonlarını trades tablosundan yeniden oluşturur.
+     * @return Oluşturulan pozisyon sayısı, hata olursa -1
+     */
+    public int rebuildUser(int userId) {
+        return rebuild(userId);
+    }
+
+    private int rebuild(Integer userId) {
+        String where = userId != null ? "WHERE user_id = ? " : "";
+        String deleteSql = "DELETE FROM positions " + where;
+        String insertSql = "INSERT INTO positions(user_id, asset_id, net_qty, buy_qty, buy_notional) " +
+                "SELECT user_id, asset_id, net_qty, buy_qty, buy_notional FROM (" +
+                AGGREGATE_TRADES + where + "GROUP BY user_id, asset_id) agg";
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement del = conn.prepareStatement(deleteSql);
+                 PreparedStatement ins = conn.prepareStatement(insertSql)) {
+                if (userId != null) {
+                    del.setInt(1, userId);
+                    ins.setInt(1, userId);
+                }
+                del.executeUpdate();
+                int created = ins.executeUpdate();
+                conn.commit();
+                return created;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * positions tablosunu trades tablosuyla karşılaştırır.
+     * @return Uyuşmayan pozisyonlar; tablo tutarlıysa boş liste
+     */
+    public List<Mismatch> verify() {
+        String sql = "SELECT COALESCE(e.user_id, p.user_id) AS user_id, " +
+                "       COALESCE(e.asset_id, p.asset_id) AS asset_id, " +
+                "       COALESCE(e.net_qty, 0) AS exp_net_qty, COALESCE(p.net_qty, 0) AS act_net_qty, " +
+                "       COALESCE(e.buy_qty, 0) AS exp_buy_qty, COALESCE(p.buy_qty, 0) AS act_buy_qty, " +
+                "       COALESCE(e.buy_notional, 0) AS exp_buy_notional, COALESCE(p.buy_notional, 0) AS act_buy_notional " +
+                "FROM (" + AGGREGATE_TRADES + "GROUP BY user_id, asset_id) e " +
+                "FULL OUTER JOIN positions p ON p.user_id = e.user_id AND p.asset_id = e.asset_id " +
+                "WHERE ABS(COALESCE(e.net_qty, 0) - COALESCE(p.net_qty, 0)) > ? " +
+                "   OR ABS(COALESCE(e.buy_qty, 0) - COALESCE(p.buy_qty, 0)) > ? " +
+                "   OR ABS(COALESCE(e.buy_notional, 0) - COALESCE(p.buy_notional, 0)) > ? " +
+                "ORDER BY user_id, asset_id";
+
+        List<Mismatch> list = new ArrayList<>();
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setDouble(1, TOLERANCE);
+            ps.setDouble(2, TOLERANCE);
+            ps.setDouble(3, TOLERANCE);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new Mismatch(
+                            rs.getInt("user_id"),
+                            rs.getInt("asset_id"),
+                            rs.getDouble("exp_net_qty"),
+                            rs.getDouble("act_net_qty"),
+                            rs.getDouble("exp_buy_qty"),
+                            rs.getDouble("act_buy_qty"),
+                            rs.getDouble("exp_buy_notional"),
+                            rs.getDouble("act_buy_notional")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+}
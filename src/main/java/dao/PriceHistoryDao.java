@@ -1,14 +1,41 @@
 package dao;
 
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 import util.DatabaseUtil;
+import util.IntDoubleHashMap;
+import util.LatestPriceCache;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
 
 public class PriceHistoryDao {
 
+    // Bu sayıdan fazla satır yazılacaksa JDBC batch yerine COPY kullanılır (-Dprice.bulk.copyThreshold)
+    private static final int COPY_THRESHOLD = Integer.getInteger("price.bulk.copyThreshold", 500);
+    private static final int BATCH_SIZE = 500;
+    private static final int COPY_FLUSH_BYTES = 64 * 1024;
+
+    /**
+     * Toplu yazım için tek bir fiyat kaydı.
+     */
+    public record PricePoint(
+            int assetId,
+            double price,
+            String currency,
+            String source,
+            LocalDateTime priceTime
+    ) {}
+
+    private final LatestPriceCache cache = LatestPriceCache.getInstance();
+
     public void insert(int assetId, double price) {
         String sql = """
             INSERT INTO prices_history (asset_id, price, created_at)
@@ -21,6 +48,7 @@ public class PriceHistoryDao {
             ps.setInt(1, assetId);
             ps.setDouble(2, price);
             ps.executeUpdate();
+            cache.put(assetId, price);
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -29,9 +57,14 @@ public class PriceHistoryDao {
 
     /**
      * Verilen varlık için en son kaydedilen fiyatı döner.
-     * Kayıt yoksa null döner.
+     * Önce son fiyat önbelleğine bakılır. Kayıt yoksa null döner.
      */
     public Double findLatestPrice(int assetId) {
+        double cached = cache.get(assetId);
+        if (!Double.isNaN(cached)) {
+            return cached;
+        }
+
         String sql = """
             SELECT price
             FROM prices_history
@@ -47,7 +80,9 @@ public class PriceHistoryDao {
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return rs.getDouble("price");
+                    double price = rs.getDouble("price");
+                    cache.put(assetId, price);
+                    return price;
                 }
             }
         } catch (SQLException e) {
@@ -55,4 +90,175 @@ public class PriceHistoryDao {
         }
         return null;
     }
+
+    /**
+     * Verilen varlıkların her biri için en son kaydedilen fiyatı tek sorguda döner.
+     * Önbellekte bulunan fiyatlar için veritabanına gidilmez.
+     * Fiyat kaydı olmayan varlıklar sonuç haritasında yer almaz.
+     * @param assetIds Varlık ID'leri
+     * @return asset_id -> son fiyat eşlemesi
+     */
+    public IntDoubleHashMap findLatestPrices(int[] assetIds) {
+        IntDoubleHashMap prices = new IntDoubleHashMap(assetIds.length);
+
+        // Önbellekte olmayanları topla
+        int[] missing = new int[assetIds.length];
+        int missingCount = 0;
+        for (int assetId : assetIds) {
+            double cached = cache.get(assetId);
+            if (Double.isNaN(cached)) {
+                missing[missingCount++] = assetId;
+            } else {
+                prices.put(assetId, cached);
+            }
+        }
+        if (missingCount == 0) {
+            return prices;
+        }
+
+        String sql = """
+            SELECT DISTINCT ON (asset_id) asset_id, price
+            FROM prices_history
+            WHERE asset_id = ANY (?)
+            ORDER BY asset_id, id DESC
+        """;
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            Integer[] ids = new Integer[missingCount];
+            for (int i = 0; i < missingCount; i++) {
+                ids[i] = missing[i];
+            }
+            Array idArray = conn.createArrayOf("integer", ids);
+            ps.setArray(1, idArray);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int assetId = rs.getInt("asset_id");
+                    double price = rs.getDouble("price");
+                    prices.put(assetId, price);
+                    cache.put(assetId, price);
+                }
+            } finally {
+                idArray.free();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return prices;
+    }
+
+    /**
+     * Fiyat kayıtlarını tek transaction içinde toplu olarak yazar.
+     * Az sayıda kayıt için JDBC batch (reWriteBatchedInserts ile çok satırlı INSERT'e çevrilir),
+     * çok sayıda kayıt için PostgreSQL COPY kullanılır. Başarılı commit sonrası
+     * son fiyat önbelleği güncellenir.
+     * @param points Yazılacak kayıtlar
+     * @return Tüm kayıtlar yazıldıysa true, transaction geri alındıysa false
+     */
+    public boolean insertBatch(List<PricePoint> points) {
+        if (points.isEmpty()) {
+            return true;
+        }
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (points.size() >= COPY_THRESHOLD) {
+                    copyIn(conn, points);
+                } else {
+                    batchInsert(conn, points);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+
+        for (PricePoint p : points) {
+            cache.put(p.assetId(), p.price());
+        }
+        return true;
+    }
+
+    private void batchInsert(Connection conn, List<PricePoint> points) throws SQLException {
+        String sql = """
+            INSERT INTO prices_history (asset_id, price, currency, source, price_time)
+            VALUES (?, ?, ?, ?, ?)
+        """;
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int pending = 0;
+            for (PricePoint p : points) {
+                ps.setInt(1, p.assetId());
+                ps.setDouble(2, p.price());
+                ps.setString(3, p.currency());
+                ps.setString(4, p.source());
+                ps.setTimestamp(5, Timestamp.valueOf(p.priceTime()));
+                ps.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Kayıtları CSV olarak COPY ... FROM STDIN ile akıtır; tüm veri bellekte biriktirilmez.
+     */
+    private void copyIn(Connection conn, List<PricePoint> points) throws SQLException {
+        String sql = "COPY prices_history (asset_id, price, currency, source, price_time) FROM STDIN WITH (FORMAT csv)";
+
+        CopyIn copy = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        try {
+            StringBuilder sb = new StringBuilder(COPY_FLUSH_BYTES + 256);
+            for (PricePoint p : points) {
+                sb.append(p.assetId()).append(',')
+                        .append(p.price()).append(',');
+                appendCsv(sb, p.currency());
+                sb.append(',');
+                appendCsv(sb, p.source());
+                sb.append(',')
+                        .append(p.priceTime()).append('\n');
+                if (sb.length() >= COPY_FLUSH_BYTES) {
+                    writeCopy(copy, sb);
+                }
+            }
+            writeCopy(copy, sb);
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    private static void writeCopy(CopyIn copy, StringBuilder sb) throws SQLException {
+        if (sb.length() == 0) return;
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        sb.setLength(0);
+    }
+
+    private static void appendCsv(StringBuilder sb, String value) {
+        if (value == null) {
+            return; // CSV formatında boş alan NULL demektir
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') sb.append('"');
+            sb.append(c);
+        }
+        sb.append('"');
+    }
 }
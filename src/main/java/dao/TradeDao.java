@@ -12,23 +12,37 @@ import java.util.List;
 
 public class TradeDao {
 
+    private final PositionDao positionDao = new PositionDao();
+
+    /**
+     * İşlemi kaydeder ve aynı transaction içinde positions tablosundaki pozisyonu günceller.
+     */
     public void insert(Trade t) {
         String sql = """
             INSERT INTO trades(user_id, asset_id, trade_type, quantity, price, trade_time)
             VALUES (?, ?, ?, ?, ?, ?)
         """;
 
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, t.getUserId());
-            ps.setInt(2, t.getAssetId());
-            ps.setString(3, t.getTradeType().name()); // BUY / SELL
-            ps.setDouble(4, t.getQuantity());
-            ps.setDouble(5, t.getPrice());
-            ps.setTimestamp(6, Timestamp.valueOf(t.getTradeDate()));
-
-            ps.executeUpdate();
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+
+                ps.setInt(1, t.getUserId());
+                ps.setInt(2, t.getAssetId());
+                ps.setString(3, t.getTradeType().name()); // BUY / SELL
+                ps.setDouble(4, t.getQuantity());
+                ps.setDouble(5, t.getPrice());
+                ps.setTimestamp(6, Timestamp.valueOf(t.getTradeDate()));
+
+                ps.executeUpdate();
+                positionDao.applyTrade(conn, t);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -74,6 +88,7 @@ public class TradeDao {
     /**
      * Belirli bir kullanıcının, belirli bir varlığa ait tüm işlemlerini siler.
      * Portföy tablosundaki bir satırı kaldırmak için kullanılır.
+     * İlgili pozisyon aynı transaction içinde positions tablosundan da silinir.
      */
     public void deleteAllByUserAndAsset(int userId, int assetId) {
         String sql = """
@@ -81,13 +96,22 @@ public class TradeDao {
             WHERE user_id = ? AND asset_id = ?
         """;
 
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, userId);
-            ps.setInt(2, assetId);
-
-            ps.executeUpdate();
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+
+                ps.setInt(1, userId);
+                ps.setInt(2, assetId);
+
+                ps.executeUpdate();
+                positionDao.delete(conn, userId, assetId);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -98,6 +122,7 @@ public class TradeDao {
     /**
      * Bir kullanıcının her enstrümanı için net miktar ve ağırlıklı ortalama maliyetini hesaplar.
      * Ayrıca enstrümanın market bilgisini de döner.
+     * Değerler işlem geçmişi yerine positions tablosundan okunur.
      */
     public record PositionAgg(
             int assetId,
@@ -113,22 +138,14 @@ public class TradeDao {
                 a.id AS asset_id,
                 a.symbol AS symbol,
                 m.code AS market_code,
-                SUM(CASE WHEN t.trade_type = 'BUY'  THEN t.quantity
-                         WHEN t.trade_type = 'SELL' THEN -t.quantity
-                         ELSE 0 END) AS net_qty,
-                CASE
-                    WHEN SUM(CASE WHEN t.trade_type = 'BUY' THEN t.quantity ELSE 0 END) = 0
-                        THEN 0
-                    ELSE
-                        SUM(CASE WHEN t.trade_type = 'BUY' THEN t.quantity * t.price ELSE 0 END)
-                        /
-                        SUM(CASE WHEN t.trade_type = 'BUY' THEN t.quantity ELSE 0 END)
+                p.net_qty AS net_qty,
+                CASE WHEN p.buy_qty = 0 THEN 0
+                     ELSE p.buy_notional / p.buy_qty
                 END AS avg_cost
-            FROM trades t
-            JOIN assets a  ON a.id = t.asset_id
+            FROM positions p
+            JOIN assets a  ON a.id = p.asset_id
             JOIN markets m ON m.id = a.market_id
-            WHERE t.user_id = ?
-            GROUP BY a.id, a.symbol, m.code
+            WHERE p.user_id = ?
         """;
 
         List<PositionAgg> list = new ArrayList<>();
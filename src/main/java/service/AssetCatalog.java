@@ -0,0 +1,252 @@
+package service;
+
+import dao.AssetDao;
+import model.Asset;
+import model.MarketType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Varlık kataloğu. Tüm varlıklar ilk kullanımda bir kez yüklenir ve sembol, Yahoo sembolü
+ * ve isim anahtarları normalize edilerek (boşluklar kırpılmış, büyük harf) indekslenir:
+ * - Tam eşleşme için anahtar -> varlık listesi hash tablosu
+ * - Önek araması için sıralı anahtar dizisi; bir önekle başlayan anahtarlar dizide ardışık
+ *   bir aralıktır ve ikili aramayla bulunur (düğüm nesnesi olmayan düz bir trie gibi)
+ * İndeks değişmez bir nesnedir; yeniden yüklemede bütün olarak değiştirilir, okuyucular kilit almaz.
+ * Boş dönen yükleme (veritabanı hatası ya da henüz varlık yok) saklanmaz; sonraki kullanımda tekrar denenir.
+ */
+public class AssetCatalog {
+
+    // Anahtar türleri: eşleşmenin hangi alandan geldiği sıralamada kullanılır
+    private static final byte KEY_SYMBOL = 0;
+    private static final byte KEY_YAHOO = 1;
+    private static final byte KEY_NAME = 2;
+
+    private static final AssetCatalog INSTANCE = new AssetCatalog();
+
+    /**
+     * Değişmez indeks görüntüsü. keys[i] anahtarı assetIdx[i] varlığına aittir; keys artan sıralıdır.
+     */
+    private record Index(Asset[] assets, MarketType[] markets, Map<String, int[]> exact,
+                         String[] keys, int[] assetIdx, byte[] keyKinds) {}
+
+    private final AssetDao assetDao = new AssetDao();
+    private volatile Index index;
+    private final Object loadLock = new Object();
+    // Aynı anda en fazla bir arka plan yüklemesi çalışır
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private AssetCatalog() {}
+
+    public static AssetCatalog getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Varlıkları arka planda veritabanından tekrar yükler; hemen döner. Yükleme bitene kadar
+     * eski indeks kullanılmaya devam eder, böylece aramalar beklemez. Başka bir yükleme
+     * sürüyorsa yeni yükleme başlatılmaz.
+     */
+    public void refresh() {
+        if (!refreshing.compareAndSet(false, true)) return;
+        Thread t = new Thread(() -> {
+            try {
+                load();
+            } finally {
+                refreshing.set(false);
+            }
+        }, "asset-catalog-loader");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public boolean isLoaded() {
+        return index != null;
+    }
+
+    /**
+     * Sembol, Yahoo sembolü veya isimle tam eşleşen varlığı bulur. Seçili piyasadaki eşleşme
+     * önceliklidir; yoksa diğer piyasalardaki ilk eşleşme döner (kullanıcı yanlış piyasa seçmiş olabilir).
+     * Katalog yüklenmediyse yüklenene kadar bekler.
+     * @return Eşleşen varlık; yoksa null
+     */
+    public Asset find(String text, MarketType market) {
+        String key = normalize(text);
+        if (key.isEmpty()) return null;
+        Index idx = index();
+        int[] matches = idx.exact().get(key);
+        if (matches == null) return null;
+        for (int i : matches) {
+            if (idx.markets()[i] == market) return idx.assets()[i];
+        }
+        return idx.assets()[matches[0]];
+    }
+
+    /**
+     * Yazılan metinle başlayan varlıkları sıralı döner (typeahead). Sıralama: tam eşleşme,
+     * sonra önek eşleşmesi; her grupta sembol eşleşmeleri isimden, seçili piyasa diğerlerinden,
+     * kısa anahtarlar uzunlardan önce gelir. Her varlık en fazla bir kez döner.
+     * Katalog yüklenmediyse yüklenene kadar bekler.
+     */
+    public List<Asset> search(String prefix, MarketType market, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) return List.of();
+        Index idx = index();
+
+        String[] keys = idx.keys();
+        int from = lowerBound(keys, key);
+        int to = lowerBound(keys, key + Character.MAX_VALUE);
+
+        // En iyi limit kadar adayı skor sırasıyla tutar (limit küçük olduğu için doğrusal ekleme)
+        int[] best = new int[limit];
+        long[] bestScore = new long[limit];
+        int n = 0;
+        for (int k = from; k < to; k++) {
+            int a = idx.assetIdx()[k];
+            long score = score(keys[k], key, idx.keyKinds()[k], idx.markets()[a] == market || market == null);
+            if (n == limit && score >= bestScore[n - 1]) continue;
+
+            // Aynı varlık başka bir anahtarla listede varsa daha iyi skor kalır
+            int existing = -1;
+            for (int j = 0; j < n; j++) {
+                if (best[j] == a) {
+                    existing = j;
+                    break;
+                }
+            }
+            if (existing >= 0) {
+                if (score >= bestScore[existing]) continue;
+                System.arraycopy(best, existing + 1, best, existing, n - existing - 1);
+                System.arraycopy(bestScore, existing + 1, bestScore, existing, n - existing - 1);
+                n--;
+            }
+
+            int pos = n == limit ? n - 1 : n++;
+            while (pos > 0 && bestScore[pos - 1] > score) {
+                best[pos] = best[pos - 1];
+                bestScore[pos] = bestScore[pos - 1];
+                pos--;
+            }
+            best[pos] = a;
+            bestScore[pos] = score;
+        }
+
+        List<Asset> result = new ArrayList<>(n);
+        for (int j = 0; j < n; j++) {
+            result.add(idx.assets()[best[j]]);
+        }
+        return result;
+    }
+
+    /**
+     * Düşük skor daha iyi: [tam eşleşme değilse 1][isim anahtarıysa 1][başka piyasaysa 1][anahtar uzunluğu]
+     */
+    private static long score(String candidate, String key, byte kind, boolean marketMatch) {
+        long score = 0;
+        if (candidate.length() != key.length()) score |= 1L << 34;
+        if (kind == KEY_NAME) score |= 1L << 33;
+        if (!marketMatch) score |= 1L << 32;
+        return score | candidate.length();
+    }
+
+    /**
+     * Dizide key'den küçük olmayan ilk anahtarın indeksi.
+     */
+    private static int lowerBound(String[] keys, String key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    static String normalize(String s) {
+        return s == null ? "" : s.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private Index index() {
+        Index idx = index;
+        if (idx != null) return idx;
+        synchronized (loadLock) {
+            idx = index;
+            return idx != null ? idx : load();
+        }
+    }
+
+    /**
+     * Varlıkları yükleyip indeksi değiştirir. AssetDao hata durumunda boş liste döndüğü için
+     * boş sonuç saklanmaz; önceki indeks (varsa) korunur.
+     */
+    private Index load() {
+        synchronized (loadLock) {
+            List<Asset> assets = assetDao.findAll();
+            Index idx = build(assets);
+            if (!assets.isEmpty()) {
+                index = idx;
+            }
+            return index != null ? index : idx;
+        }
+    }
+
+    private static Index build(List<Asset> list) {
+        int n = list.size();
+        Asset[] assets = list.toArray(new Asset[0]);
+        MarketType[] markets = new MarketType[n];
+
+        // Her varlık için en fazla üç anahtar; aynı varlıkta tekrar eden anahtar bir kez eklenir
+        String[] rawKeys = new String[n * 3];
+        int[] rawAsset = new int[n * 3];
+        byte[] rawKinds = new byte[n * 3];
+        int count = 0;
+        Map<String, List<Integer>> exact = new HashMap<>(n * 4);
+        for (int i = 0; i < n; i++) {
+            Asset a = assets[i];
+            markets[i] = a.getMarket();
+            String sym = normalize(a.getSymbol());
+            String yahoo = normalize(a.getYahooSymbol());
+            String name = normalize(a.getName());
+            for (int k = 0; k < 3; k++) {
+                String key = k == KEY_SYMBOL ? sym : k == KEY_YAHOO ? yahoo : name;
+                if (key.isEmpty()) continue;
+                if (k > KEY_SYMBOL && key.equals(sym)) continue;
+                if (k == KEY_NAME && key.equals(yahoo)) continue;
+                rawKeys[count] = key;
+                rawAsset[count] = i;
+                rawKinds[count] = (byte) k;
+                count++;
+                exact.computeIfAbsent(key, x -> new ArrayList<>(1)).add(i);
+            }
+        }
+
+        // Anahtarları sırala; eşit anahtarlar varlık sırasını korur
+        Integer[] order = new Integer[count];
+        for (int k = 0; k < count; k++) {
+            order[k] = k;
+        }
+        Arrays.sort(order, (x, y) -> rawKeys[x].compareTo(rawKeys[y]));
+        String[] keys = new String[count];
+        int[] assetIdx = new int[count];
+        byte[] kinds = new byte[count];
+        for (int k = 0; k < count; k++) {
+            int o = order[k];
+            keys[k] = rawKeys[o];
+            assetIdx[k] = rawAsset[o];
+            kinds[k] = rawKinds[o];
+        }
+
+        Map<String, int[]> exactIdx = new HashMap<>(exact.size() * 2);
+        for (Map.Entry<String, List<Integer>> e : exact.entrySet()) {
+            exactIdx.put(e.getKey(), e.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        return new Index(assets, markets, exactIdx, keys, assetIdx, kinds);
+    }
+}
@@ -0,0 +1,185 @@
+package service;
+
+import dao.AssetDao;
+import dao.FxRateDao;
+import model.Asset;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Para birimlerinin TL karşılığını sağlayan kur servisi.
+ * Kurlar fiyatlarla aynı sağlayıcıdan (PriceProviders.get(), "USDTRY=X" gibi sembollerle) çekilir, TTL süresince
+ * bellekte tutulur ve fx_rates_history tablosuna yazılır.
+ *
+ * Değerleme sırasında her satır için para birimi kodu bir kez currencyIndex ile indekse
+ * çevrilir; rateToTry(int) sonrasında nesne üretmeden dizi okuması yapar.
+ */
+public class FxRateService {
+
+    public static final String BASE_CURRENCY = "TRY";
+
+    // Sabit indeksler: TRY ve USD her zaman kayıtlıdır
+    public static final int TRY = 0;
+    public static final int USD = 1;
+
+    // Kurların yenilenme süresi (-Dfx.cache.ttlMs ile değiştirilebilir)
+    private static final long TTL_NANOS = Long.getLong("fx.cache.ttlMs", 10 * 60_000L) * 1_000_000L;
+    // Ağdan ve geçmişten kur alınamazsa kullanılacak USD/TRY kuru
+    private static final double FALLBACK_USD_TRY = Double.parseDouble(System.getProperty("fx.fallback.USDTRY", "43.0"));
+
+    private static final FxRateService INSTANCE = new FxRateService();
+
+    private final PriceProvider priceProvider = PriceProviders.get();
+    private final FxRateDao fxRateDao = new FxRateDao();
+    private final AssetDao assetDao = new AssetDao();
+
+    // Kod -> indeks eşlemesi yalnızca büyür; verilen indeksler değişmez
+    private final Map<String, Integer> indexByCode = new HashMap<>();
+    private String[] codes = {BASE_CURRENCY, "USD"};
+
+    // Okuyucular her zaman tam bir diziyi görür; yenilemede dizi bütün olarak değiştirilir
+    private volatile double[] ratesToTry = {1.0, FALLBACK_USD_TRY};
+
+    // Yenilemeler birbirini bekler; ağ istekleri sırasında currencyIndex/rateToTry kilitlenmez
+    private final Object refreshLock = new Object();
+    private volatile long refreshedAt;
+    private boolean historyLoaded;
+
+    private FxRateService() {
+        indexByCode.put(BASE_CURRENCY, TRY);
+        indexByCode.put("USD", USD);
+    }
+
+    public static FxRateService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Para birimi kodunun indeksini döner; kod ilk kez görülüyorsa kaydeder.
+     * Kuru henüz bilinmeyen para birimleri bir sonraki yenilemeye kadar 1.0 kabul edilir.
+     * @param code Para birimi kodu (örn: USD); null veya boşsa TRY
+     */
+    public synchronized int currencyIndex(String code) {
+        if (code == null || code.isBlank()) return TRY;
+        String key = code.trim().toUpperCase();
+        Integer idx = indexByCode.get(key);
+        if (idx != null) return idx;
+
+        int newIdx = codes.length;
+        codes = Arrays.copyOf(codes, newIdx + 1);
+        codes[newIdx] = key;
+        double[] grown = Arrays.copyOf(ratesToTry, newIdx + 1);
+        grown[newIdx] = 1.0;
+        ratesToTry = grown;
+        indexByCode.put(key, newIdx);
+        return newIdx;
+    }
+
+    /**
+     * İndeksi verilen para biriminin 1 biriminin TL karşılığı.
+     */
+    public double rateToTry(int currencyIndex) {
+        double[] rates = ratesToTry;
+        return currencyIndex >= 0 && currencyIndex < rates.length ? rates[currencyIndex] : 1.0;
+    }
+
+    /**
+     * Para biriminin 1 biriminin TL karşılığı.
+     */
+    public double rateToTry(String code) {
+        return rateToTry(currencyIndex(code));
+    }
+
+    public synchronized String currencyCode(int currencyIndex) {
+        return codes[currencyIndex];
+    }
+
+    /**
+     * Kurlar TTL'den eskiyse yeniler. Ağ isteği yapabileceği için EDT dışında çağrılmalıdır.
+     */
+    public void ensureFresh() {
+        if (isFresh()) return;
+        synchronized (refreshLock) {
+            // Beklerken başka bir thread yenilemiş olabilir
+            if (isFresh()) return;
+            refresh();
+        }
+    }
+
+    private boolean isFresh() {
+        long at = refreshedAt;
+        return at != 0 && System.nanoTime() - at < TTL_NANOS;
+    }
+
+    /**
+     * Varlıklarda kullanılan tüm para birimlerinin TL kurlarını çeker, geçmişe yazar ve yayınlar.
+     * Çekilemeyen kurlar için son bilinen değer korunur.
+     */
+    public void refresh() {
+        synchronized (refreshLock) {
+            refreshLocked();
+        }
+    }
+
+    private void refreshLocked() {
+        if (!historyLoaded) {
+            // İlk yüklemede son kaydedilen kurlarla başla (ağ yoksa bunlar kullanılır)
+            for (Map.Entry<String, Double> e : fxRateDao.findLatestRates(BASE_CURRENCY).entrySet()) {
+                setRate(currencyIndex(e.getKey()), e.getValue());
+            }
+            historyLoaded = true;
+        }
+
+        Set<String> currencies;
+        synchronized (this) {
+            currencies = new LinkedHashSet<>(Arrays.asList(codes));
+        }
+        currencies.addAll(assetDao.findDistinctCurrencies());
+        currencies.remove(BASE_CURRENCY);
+
+        List<String> codeList = new ArrayList<>(currencies);
+        List<Asset> pairs = new ArrayList<>(codeList.size());
+        for (String code : codeList) {
+            Asset pair = new Asset();
+            pair.setSymbol(code + BASE_CURRENCY);
+            pair.setCurrency(BASE_CURRENCY);
+            pair.setYahooSymbol(code + BASE_CURRENCY + "=X");
+            pairs.add(pair);
+        }
+
+        // Sağlayıcı destekliyorsa tüm kurlar tek istekte çekilir
+        List<PriceProvider.Result> results = priceProvider.fetchCurrentPrices(pairs);
+
+        List<FxRateDao.FxRate> fetched = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        String source = priceProvider.name().toUpperCase();
+        for (int i = 0; i < results.size(); i++) {
+            PriceProvider.Result r = results.get(i);
+            String code = codeList.get(i);
+            if (!r.ok()) {
+                System.err.println("Kur alınamadı: " + r.asset().getYahooSymbol() + " => " + r.error().getMessage());
+            } else if (!Double.isFinite(r.price()) || r.price() <= 0) {
+                System.err.println("Kur alınamadı: " + r.asset().getYahooSymbol() + " => Geçersiz kur: " + r.price());
+            } else {
+                setRate(currencyIndex(code), r.price());
+                fetched.add(new FxRateDao.FxRate(code, BASE_CURRENCY, r.price(), source, now));
+            }
+        }
+
+        fxRateDao.insertBatch(fetched);
+        refreshedAt = System.nanoTime();
+    }
+
+    private synchronized void setRate(int currencyIndex, double rate) {
+        double[] next = ratesToTry.clone();
+        next[currencyIndex] = rate;
+        ratesToTry = next;
+    }
+}
@@ -0,0 +1,176 @@
+package service;
+
+import model.Asset;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ağ gerektirmeyen, deterministik fiyat sağlayıcısı. Yük testleri ve ölçümler için
+ * Yahoo yerine kullanılır.
+ *
+ * Fiyatlar ya bir dosyadan sırayla tekrar oynatılır ya da sembol başına tohumlanmış
+ * rastgele yürüyüşle üretilir. Her sembolün kendi rastgele sayı üreteci olduğundan aynı
+ * tohumla aynı sembol için her zaman aynı fiyat dizisi (ve aynı hatalar) üretilir;
+ * thread sıralaması sonucu değiştirmez.
+ *
+ * Ayarlar (-D):
+ *   price.local.seed            Tohum (varsayılan 42)
+ *   price.local.volatility      Adım başına oynaklık (varsayılan 0.002)
+ *   price.local.latencyMs       Her isteğe eklenen gecikme (varsayılan 0)
+ *   price.local.latencyJitterMs Gecikmeye eklenen rastgele sapma üst sınırı (varsayılan 0)
+ *   price.local.errorRate       Hata döndürülecek isteklerin oranı, 0..1 (varsayılan 0)
+ *   price.local.file            "SEMBOL,fiyat" satırlarından oluşan tekrar dosyası (isteğe bağlı)
+ */
+public class LocalPriceProvider implements PriceProvider {
+
+    /**
+     * Sembol başına durum: rastgele sayı üreteci, son fiyat ve tekrar dosyasındaki konum.
+     */
+    private static final class SymbolState {
+        final Random rng;
+        double price;
+        int replayPos;
+
+        SymbolState(Random rng, double price) {
+            this.rng = rng;
+            this.price = price;
+        }
+    }
+
+    private final long seed;
+    private final double volatility;
+    private final long latencyMs;
+    private final long latencyJitterMs;
+    private final double errorRate;
+    private final Map<String, double[]> replay;
+
+    private final ConcurrentHashMap<String, SymbolState> states = new ConcurrentHashMap<>();
+
+    /**
+     * @param replay Sembol -> sırayla döndürülecek fiyatlar; null ise rastgele yürüyüş kullanılır
+     */
+    public LocalPriceProvider(long seed, double volatility, long latencyMs, long latencyJitterMs,
+                              double errorRate, Map<String, double[]> replay) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("errorRate 0 ile 1 arasında olmalıdır");
+        }
+        this.seed = seed;
+        this.volatility = volatility;
+        this.latencyMs = latencyMs;
+        this.latencyJitterMs = latencyJitterMs;
+        this.errorRate = errorRate;
+        this.replay = replay != null ? replay : Map.of();
+    }
+
+    public static LocalPriceProvider fromSystemProperties() {
+        String file = System.getProperty("price.local.file");
+        Map<String, double[]> replay = null;
+        if (file != null && !file.isBlank()) {
+            try {
+                replay = loadReplayFile(Path.of(file));
+            } catch (IOException e) {
+                throw new RuntimeException("Fiyat dosyası okunamadı: " + file + " / " + e.getMessage(), e);
+            }
+        }
+        return new LocalPriceProvider(
+                Long.getLong("price.local.seed", 42L),
+                Double.parseDouble(System.getProperty("price.local.volatility", "0.002")),
+                Long.getLong("price.local.latencyMs", 0L),
+                Long.getLong("price.local.latencyJitterMs", 0L),
+                Double.parseDouble(System.getProperty("price.local.errorRate", "0")),
+                replay
+        );
+    }
+
+    /**
+     * "SEMBOL,fiyat" satırlarını okur; aynı sembolün fiyatları dosyadaki sırayla tekrar oynatılır.
+     * Boş satırlar ve # ile başlayan satırlar atlanır.
+     */
+    public static Map<String, double[]> loadReplayFile(Path path) throws IOException {
+        Map<String, List<Double>> collected = new HashMap<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            int comma = trimmed.indexOf(',');
+            if (comma <= 0) {
+                throw new IOException("Geçersiz satır: " + line);
+            }
+            String symbol = trimmed.substring(0, comma).trim();
+            double price = Double.parseDouble(trimmed.substring(comma + 1).trim());
+            collected.computeIfAbsent(symbol, k -> new ArrayList<>()).add(price);
+        }
+
+        Map<String, double[]> replay = new HashMap<>();
+        for (Map.Entry<String, List<Double>> e : collected.entrySet()) {
+            List<Double> prices = e.getValue();
+            double[] arr = new double[prices.size()];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = prices.get(i);
+            }
+            replay.put(e.getKey(), arr);
+        }
+        return replay;
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public double fetchCurrentPrice(Asset asset) throws Exception {
+        String symbol = keyOf(asset);
+        SymbolState state = states.computeIfAbsent(symbol, this::newState);
+
+        long delay;
+        boolean fail;
+        double price;
+        synchronized (state) {
+            delay = latencyMs + (latencyJitterMs > 0 ? (long) (state.rng.nextDouble() * latencyJitterMs) : 0);
+            fail = errorRate > 0 && state.rng.nextDouble() < errorRate;
+            price = fail ? Double.NaN : nextPrice(symbol, state);
+        }
+
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+        if (fail) {
+            throw new IOException("Yerel sağlayıcı: enjekte edilen hata (" + symbol + ")");
+        }
+        return price;
+    }
+
+    private double nextPrice(String symbol, SymbolState state) {
+        double[] prices = replay.get(symbol);
+        if (prices != null && prices.length > 0) {
+            double p = prices[state.replayPos];
+            state.replayPos = (state.replayPos + 1) % prices.length;
+            return p;
+        }
+        state.price *= Math.exp(volatility * state.rng.nextGaussian());
+        return state.price;
+    }
+
+    private SymbolState newState(String symbol) {
+        Random rng = new Random(seed ^ ((long) symbol.hashCode() * 0x9E3779B97F4A7C15L));
+        // Başlangıç fiyatı sembolden türetilir: 10 ile 1000 arası
+        double start = 10.0 + Math.floorMod(symbol.hashCode(), 990);
+        return new SymbolState(rng, start);
+    }
+
+    private static String keyOf(Asset asset) {
+        String yahoo = asset.getYahooSymbol();
+        if (yahoo != null && !yahoo.isBlank()) return yahoo;
+        if (asset.getSymbol() != null && !asset.getSymbol().isBlank()) return asset.getSymbol();
+        return "#" + asset.getId();
+    }
+}
@@ -0,0 +1,245 @@
+package service;
+
+import model.MarketType;
+import util.PriceHistorySeeder;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uygulama genelinde tek fiyat güncelleme zamanlayıcısı. Açık olan her panel kendi
+ * zamanlayıcısını çalıştırmak yerine izlediği varlıklara abone olur; zamanlayıcı tüm
+ * abonelerin varlıklarının birleşimini piyasa bazında kendi aralığıyla çeker ve
+ * sonucu abonelere bildirir.
+ *
+ * Piyasa kapalıyken fiyat çekilmez: kapanıştan sonra son fiyat için bir kez çekilir,
+ * sonraki çekim piyasanın açılışına ertelenir. Pazarı bilinmeyen varlıklar CRYPTO
+ * takvimiyle (7/24) çekilir.
+ */
+public class MarketDataScheduler {
+
+    // Piyasa açıkken çekim aralığı (-Dmarketdata.pollMs.BIST gibi piyasa bazında değiştirilebilir)
+    private static final long DEFAULT_POLL_MS = Long.getLong("marketdata.pollMs", 60_000L);
+    // Zamanlayıcının en uzun uyku süresi; saat değişikliklerinde takvimi yeniden hesaplamak için
+    private static final long MAX_SLEEP_MS = 15 * 60_000L;
+
+    private static final MarketDataScheduler INSTANCE = new MarketDataScheduler();
+
+    /**
+     * Bir piyasanın fiyatları çekildiğinde çağrılır. Zamanlayıcı thread'inde çalışır;
+     * Swing bileşenlerine dokunacak aboneler SwingUtilities.invokeLater kullanmalıdır.
+     */
+    public interface Listener {
+        void onPricesUpdated(MarketType market, Set<Integer> assetIds, int ok, int fail);
+    }
+
+    /**
+     * Bir abonenin izlediği varlıklar. Varlıklar değiştiğinde update ile güncellenir.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final Listener listener;
+        private volatile Map<Integer, MarketType> assets = Map.of();
+
+        private Subscription(Listener listener) {
+            this.listener = listener;
+        }
+
+        /**
+         * İzlenen varlıkları değiştirir.
+         * @param assets asset_id -> piyasa
+         */
+        public void update(Map<Integer, MarketType> assets) {
+            Map<Integer, MarketType> copy = new HashMap<>(assets.size());
+            assets.forEach((id, market) -> copy.put(id, market != null ? market : MarketType.CRYPTO));
+            this.assets = Collections.unmodifiableMap(copy);
+            wake();
+        }
+
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+    }
+
+    /**
+     * Piyasa bazında zamanlama durumu. Sadece zamanlayıcı thread'inde okunup yazılır.
+     */
+    private static final class MarketState {
+        long nextPollAt;
+        boolean polled;
+        boolean lastPollOpen;
+    }
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Map<MarketType, MarketState> states = new EnumMap<>(MarketType.class);
+    private final Map<MarketType, Long> pollIntervals = new EnumMap<>(MarketType.class);
+
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> pending;
+    // Tur çalışırken gelen uyandırma; tur bitince planlanan 0 gecikmeli tur iptal edilmez
+    private boolean wakeRequested;
+
+    private MarketDataScheduler() {
+        for (MarketType m : MarketType.values()) {
+            states.put(m, new MarketState());
+            pollIntervals.put(m, Long.getLong("marketdata.pollMs." + m.name(), DEFAULT_POLL_MS));
+        }
+    }
+
+    public static MarketDataScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Yeni bir abonelik açar. İzlenecek varlıklar Subscription.update ile verilir.
+     */
+    public Subscription subscribe(Listener listener) {
+        Subscription s = new Subscription(listener);
+        subscriptions.add(s);
+        return s;
+    }
+
+    /**
+     * Bildirim almadan abone olur; çekilen fiyatlar PriceEventBus üzerinden izlenebilir.
+     */
+    public Subscription subscribe() {
+        return subscribe(null);
+    }
+
+    /**
+     * Zamanlayıcıyı durdurur. Sonraki abonelik güncellemesi yeniden başlatır.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            pending = null;
+            wakeRequested = false;
+        }
+    }
+
+    /**
+     * Bir sonraki turu hemen çalıştırır; yeni eklenen piyasaların takvimi hesaplanır.
+     * Vakti gelmemiş piyasalar için çekim yapılmaz.
+     */
+    private synchronized void wake() {
+        wakeRequested = true;
+        scheduleTick(0);
+    }
+
+    /**
+     * Tur sonunda bir sonraki turu planlar. Tur sırasında wake çağrıldıysa hemen çalışacak
+     * tur zaten kuyruktadır; daha geç bir turla değiştirilmez.
+     */
+    private synchronized void scheduleNextTick(long delayMs) {
+        if (wakeRequested) return;
+        scheduleTick(delayMs);
+    }
+
+    private synchronized void scheduleTick(long delayMs) {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "market-data-scheduler");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = executor.schedule(this::tick, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+        synchronized (this) {
+            // Bu tur abonelikleri baştan okur; önceki uyandırmalar karşılanmış olur
+            wakeRequested = false;
+        }
+        long nextWake = Long.MAX_VALUE;
+        try {
+            for (MarketType market : MarketType.values()) {
+                Set<Integer> assetIds = assetsOf(market);
+                MarketState state = states.get(market);
+                if (assetIds.isEmpty()) {
+                    continue;
+                }
+
+                long now = System.currentTimeMillis();
+                if (now >= state.nextPollAt) {
+                    boolean open = MarketHours.isOpen(market, Instant.ofEpochMilli(now));
+                    // Kapalı piyasa: hiç çekilmediyse veya son çekim seans içindeyse (kapanış fiyatı) bir kez çek
+                    if (open || !state.polled || state.lastPollOpen) {
+                        poll(market, assetIds);
+                        state.polled = true;
+                        state.lastPollOpen = open;
+                    }
+
+                    now = System.currentTimeMillis();
+                    state.nextPollAt = open
+                            ? now + pollIntervals.get(market)
+                            : MarketHours.nextOpen(market, Instant.ofEpochMilli(now)).toEpochMilli();
+                }
+                nextWake = Math.min(nextWake, state.nextPollAt);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        // Abone yoksa tur planlanmaz; update çağrısı zamanlayıcıyı yeniden uyandırır
+        if (nextWake != Long.MAX_VALUE) {
+            long delay = Math.max(0, nextWake - System.currentTimeMillis());
+            scheduleNextTick(Math.min(delay, MAX_SLEEP_MS));
+        }
+    }
+
+    private Set<Integer> assetsOf(MarketType market) {
+        Set<Integer> ids = new HashSet<>();
+        for (Subscription s : subscriptions) {
+            s.assets.forEach((id, m) -> {
+                if (m == market) ids.add(id);
+            });
+        }
+        return ids;
+    }
+
+    private void poll(MarketType market, Set<Integer> assetIds) {
+        int ok;
+        int fail;
+        try {
+            int[] result = PriceHistorySeeder.fetchAndSavePricesForAssets(assetIds);
+            ok = result[0];
+            fail = result[1];
+        } catch (Exception e) {
+            System.err.println(market + " fiyatları çekilemedi: " + e.getMessage());
+            ok = 0;
+            fail = assetIds.size();
+        }
+
+        Set<Integer> polled = Collections.unmodifiableSet(assetIds);
+        for (Subscription s : subscriptions) {
+            boolean interested = false;
+            for (Integer id : s.assets.keySet()) {
+                if (polled.contains(id)) {
+                    interested = true;
+                    break;
+                }
+            }
+            if (!interested || s.listener == null) continue;
+            try {
+                s.listener.onPricesUpdated(market, polled, ok, fail);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
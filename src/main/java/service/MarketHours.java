@@ -0,0 +1,80 @@
+package service;
+
+import model.MarketType;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Piyasaların işlem saatleri. Resmi tatiller dikkate alınmaz; tatil günlerinde piyasa açık
+ * görünür ve fiyat sadece değişmeden çekilir.
+ */
+public final class MarketHours {
+
+    /**
+     * Bir piyasanın günlük seansı. Saatler piyasanın kendi saat dilimindedir.
+     */
+    private record Session(ZoneId zone, LocalTime open, LocalTime close, boolean weekdaysOnly) {}
+
+    // BIST: 10:00-18:00 İstanbul, hafta içi
+    private static final Session BIST = new Session(ZoneId.of("Europe/Istanbul"), LocalTime.of(10, 0), LocalTime.of(18, 0), true);
+    // ABD: 09:30-16:00 New York, hafta içi
+    private static final Session US = new Session(ZoneId.of("America/New_York"), LocalTime.of(9, 30), LocalTime.of(16, 0), true);
+    // Emtia vadelileri hafta içi neredeyse kesintisiz işlem görür
+    private static final Session COMMODITY = new Session(ZoneId.of("America/New_York"), LocalTime.MIN, LocalTime.MAX, true);
+
+    private MarketHours() {}
+
+    /**
+     * Piyasa verilen anda açık mı? Pazarı bilinmeyen (null) varlıklar her zaman açık kabul edilir.
+     */
+    public static boolean isOpen(MarketType market, Instant at) {
+        Session s = sessionOf(market);
+        if (s == null) return true;
+
+        ZonedDateTime local = at.atZone(s.zone());
+        if (s.weekdaysOnly() && isWeekend(local.getDayOfWeek())) return false;
+
+        LocalTime t = local.toLocalTime();
+        return !t.isBefore(s.open()) && (s.close() == LocalTime.MAX || t.isBefore(s.close()));
+    }
+
+    /**
+     * Piyasanın verilen andan sonraki ilk açılış anı. Piyasa zaten açıksa verilen anı döner.
+     */
+    public static Instant nextOpen(MarketType market, Instant after) {
+        if (isOpen(market, after)) return after;
+
+        Session s = sessionOf(market);
+        ZonedDateTime local = after.atZone(s.zone());
+        LocalDate day = local.toLocalDate();
+        for (int i = 0; i <= 7; i++) {
+            LocalDate d = day.plusDays(i);
+            if (s.weekdaysOnly() && isWeekend(d.getDayOfWeek())) continue;
+            ZonedDateTime open = d.atTime(s.open()).atZone(s.zone());
+            if (open.isAfter(local)) {
+                return open.toInstant();
+            }
+        }
+        // Her gün kapalı bir seans tanımlanmadığı sürece buraya gelinmez
+        return after.plusSeconds(24 * 3600);
+    }
+
+    private static Session sessionOf(MarketType market) {
+        if (market == null) return null;
+        return switch (market) {
+            case BIST -> BIST;
+            case US -> US;
+            case COMMODITY -> COMMODITY;
+            case CRYPTO -> null;
+        };
+    }
+
+    private static boolean isWeekend(DayOfWeek day) {
+        return day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY;
+    }
+}
@@ -0,0 +1,179 @@
+package service;
+
+import model.MarketType;
+
+import java.util.Arrays;
+
+/**
+ * Bir portföyün tek geçişte hesaplanmış değerlemesi.
+ * Pozisyon bazındaki değerler satır indeksine göre paralel dizilerde tutulur; tablo,
+ * metrik kartları ve halka grafik aynı nesneyi kullanır. Oluşturulduktan sonra değişmez.
+ * Tüm TL tutarları kur uygulanmış değerlerdir.
+ */
+public final class PortfolioValuation {
+
+    private final int size;
+
+    private final int[] assetIds;
+    private final String[] symbols;
+    private final String[] names;
+    private final String[] marketCodes;
+    private final MarketType[] markets;
+    private final String[] currencies;
+    private final String[] currencySymbols;
+
+    private final double[] quantities;
+    private final double[] avgCosts;
+    private final double[] prices;
+    private final double[] fxRates;
+    private final double[] valuesTl;
+    private final double[] costsTl;
+
+    private final double[] marketTotals;
+    private final double totalValue;
+    private final double totalCost;
+
+    // asset_id -> satır indeksi: artan sıralı asset_id'ler ve aynı sıradaki satır indeksleri
+    // (ikili arama; kutulama yok)
+    private final int[] sortedAssetIds;
+    private final int[] rowsBySortedId;
+
+    PortfolioValuation(int size, int[] assetIds, String[] symbols, String[] names, String[] marketCodes,
+                       MarketType[] markets, String[] currencies, String[] currencySymbols,
+                       double[] quantities, double[] avgCosts, double[] prices, double[] fxRates,
+                       double[] valuesTl, double[] costsTl, double[] marketTotals,
+                       double totalValue, double totalCost) {
+        this.size = size;
+        this.assetIds = assetIds;
+        this.symbols = symbols;
+        this.names = names;
+        this.marketCodes = marketCodes;
+        this.markets = markets;
+        this.currencies = currencies;
+        this.currencySymbols = currencySymbols;
+        this.quantities = quantities;
+        this.avgCosts = avgCosts;
+        this.prices = prices;
+        this.fxRates = fxRates;
+        this.valuesTl = valuesTl;
+        this.costsTl = costsTl;
+        this.marketTotals = marketTotals;
+        this.totalValue = totalValue;
+        this.totalCost = totalCost;
+
+        // Üst 32 bit asset_id, alt 32 bit satır: sıralama asset_id'ye göre olur
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            packed[i] = ((long) assetIds[i] << 32) | i;
+        }
+        Arrays.sort(packed);
+        this.sortedAssetIds = new int[size];
+        this.rowsBySortedId = new int[size];
+        for (int k = 0; k < size; k++) {
+            sortedAssetIds[k] = (int) (packed[k] >> 32);
+            rowsBySortedId[k] = (int) packed[k];
+        }
+    }
+
+    /**
+     * Fiyatları değişmiş kopya; fiyata bağlı olmayan diziler paylaşılır.
+     */
+    private PortfolioValuation(PortfolioValuation base, double[] prices, double[] valuesTl,
+                               double[] marketTotals, double totalValue) {
+        this.size = base.size;
+        this.assetIds = base.assetIds;
+        this.symbols = base.symbols;
+        this.names = base.names;
+        this.marketCodes = base.marketCodes;
+        this.markets = base.markets;
+        this.currencies = base.currencies;
+        this.currencySymbols = base.currencySymbols;
+        this.quantities = base.quantities;
+        this.avgCosts = base.avgCosts;
+        this.prices = prices;
+        this.fxRates = base.fxRates;
+        this.valuesTl = valuesTl;
+        this.costsTl = base.costsTl;
+        this.marketTotals = marketTotals;
+        this.totalValue = totalValue;
+        this.totalCost = base.totalCost;
+        this.sortedAssetIds = base.sortedAssetIds;
+        this.rowsBySortedId = base.rowsBySortedId;
+    }
+
+    /**
+     * Verilen satırların fiyatları değişmiş yeni bir değerleme döner. Kurlar ve maliyetler
+     * değişmez; toplamlar sadece değişen satırların farkıyla güncellenir.
+     * @param rows Fiyatı değişen satır indeksleri
+     * @param newPrices Satırların yeni fiyatları (varlığın kendi para biriminde)
+     */
+    public PortfolioValuation withPrices(int[] rows, double[] newPrices) {
+        double[] p = prices.clone();
+        double[] v = valuesTl.clone();
+        double[] mt = marketTotals.clone();
+        double total = totalValue;
+
+        for (int k = 0; k < rows.length; k++) {
+            int i = rows[k];
+            double value = newPrices[k] * fxRates[i] * quantities[i];
+            double delta = value - v[i];
+            p[i] = newPrices[k];
+            v[i] = value;
+            total += delta;
+            if (markets[i] != null) {
+                mt[markets[i].ordinal()] += delta;
+            }
+        }
+        return new PortfolioValuation(this, p, v, mt, total);
+    }
+
+    /**
+     * Varlığın satır indeksi; portföyde yoksa -1.
+     */
+    public int indexOf(int assetId) {
+        int k = Arrays.binarySearch(sortedAssetIds, assetId);
+        return k >= 0 ? rowsBySortedId[k] : -1;
+    }
+
+    public int size() { return size; }
+
+    public int assetId(int i) { return assetIds[i]; }
+    public String symbol(int i) { return symbols[i]; }
+    public String name(int i) { return names[i]; }
+    /** Veritabanındaki ham piyasa kodu (görüntüleme için) */
+    public String marketCode(int i) { return marketCodes[i]; }
+    /** Piyasa türü; kod tanınmıyorsa null */
+    public MarketType market(int i) { return markets[i]; }
+    /** Varlığın para birimi kodu (örn: USD) */
+    public String currency(int i) { return currencies[i]; }
+    /** Para birimi simgesi (örn: $); tabloda tutarların yanında gösterilir */
+    public String currencySymbol(int i) { return currencySymbols[i]; }
+
+    public double quantity(int i) { return quantities[i]; }
+    public double avgCost(int i) { return avgCosts[i]; }
+    /** Güncel fiyat (varlığın kendi para biriminde) */
+    public double price(int i) { return prices[i]; }
+    /** Varlığın para biriminden TL'ye çevrim kuru */
+    public double fx(int i) { return fxRates[i]; }
+    public double valueTl(int i) { return valuesTl[i]; }
+    public double costTl(int i) { return costsTl[i]; }
+    public double plTl(int i) { return valuesTl[i] - costsTl[i]; }
+
+    /**
+     * Piyasa türüne göre toplam değer (TL)
+     */
+    public double marketTotal(MarketType market) {
+        return marketTotals[market.ordinal()];
+    }
+
+    public double totalValue() { return totalValue; }
+    public double totalCost() { return totalCost; }
+    public double totalPl() { return totalValue - totalCost; }
+
+    /**
+     * Portföydeki asset ID'lerinin kopyasını döner.
+     */
+    public int[] assetIds() {
+        return assetIds.clone();
+    }
+}
@@ -0,0 +1,134 @@
+package service;
+
+import dao.PortfolioDao;
+import dao.PriceHistoryDao;
+import model.MarketType;
+import util.IntDoubleHashMap;
+
+import java.util.List;
+
+/**
+ * Portföy değerleme motoru: pozisyon değerlerini, piyasa türü toplamlarını ve portföy
+ * toplamlarını tek geçişte hesaplar.
+ */
+public class PortfolioValuationService {
+
+    private static final MarketType[] MARKET_TYPES = MarketType.values();
+
+    private final PortfolioDao portfolioDao = new PortfolioDao();
+    private final PriceHistoryDao priceHistoryDao = new PriceHistoryDao();
+
+    /**
+     * Kullanıcının portföyünü veritabanından okuyup değerler.
+     * Son fiyatlar tek sorguda alınır; fiyatı olmayan pozisyonlar ortalama maliyetten değerlenir.
+     * Kurlar süresi dolmuşsa önce yenilenir (ağ isteği yapabilir).
+     */
+    public PortfolioValuation valuate(int userId) {
+        FxRateService.getInstance().ensureFresh();
+        List<PortfolioDao.PortfolioRow> rows = portfolioDao.getPortfolioSummary(userId);
+
+        int[] ids = new int[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = rows.get(i).assetId;
+        }
+        IntDoubleHashMap latestPrices = priceHistoryDao.findLatestPrices(ids);
+
+        return valuate(rows, latestPrices);
+    }
+
+    /**
+     * Verilen pozisyonları verilen son fiyatlarla ve FxRateService'in güncel kurlarıyla değerler.
+     */
+    public static PortfolioValuation valuate(List<PortfolioDao.PortfolioRow> rows, IntDoubleHashMap latestPrices) {
+        FxRateService fxRates = FxRateService.getInstance();
+        int n = rows.size();
+
+        int[] assetIds = new int[n];
+        String[] symbols = new String[n];
+        String[] names = new String[n];
+        String[] marketCodes = new String[n];
+        MarketType[] markets = new MarketType[n];
+        String[] currencies = new String[n];
+        String[] currencySymbols = new String[n];
+        double[] quantities = new double[n];
+        double[] avgCosts = new double[n];
+        double[] prices = new double[n];
+        double[] rates = new double[n];
+        double[] valuesTl = new double[n];
+        double[] costsTl = new double[n];
+        double[] marketTotals = new double[MARKET_TYPES.length];
+
+        double totalValue = 0.0;
+        double totalCost = 0.0;
+
+        for (int i = 0; i < n; i++) {
+            PortfolioDao.PortfolioRow r = rows.get(i);
+            MarketType market = parseMarket(r.market);
+            int ccy = r.currency != null && !r.currency.isBlank()
+                    ? fxRates.currencyIndex(r.currency)
+                    : defaultCurrencyIndex(market);
+            double fx = fxRates.rateToTry(ccy);
+            double price = latestPrices.get(r.assetId, r.avgCost);
+            double value = price * fx * r.quantity;
+            double cost = r.avgCost * fx * r.quantity;
+
+            assetIds[i] = r.assetId;
+            symbols[i] = r.symbol;
+            names[i] = r.name != null ? r.name : "";
+            marketCodes[i] = r.market;
+            markets[i] = market;
+            currencies[i] = fxRates.currencyCode(ccy);
+            currencySymbols[i] = currencySymbol(currencies[i]);
+            quantities[i] = r.quantity;
+            avgCosts[i] = r.avgCost;
+            prices[i] = price;
+            rates[i] = fx;
+            valuesTl[i] = value;
+            costsTl[i] = cost;
+
+            if (market != null) {
+                marketTotals[market.ordinal()] += value;
+            }
+            totalValue += value;
+            totalCost += cost;
+        }
+
+        return new PortfolioValuation(n, assetIds, symbols, names, marketCodes, markets, currencies,
+                currencySymbols, quantities, avgCosts, prices, rates, valuesTl, costsTl, marketTotals,
+                totalValue, totalCost);
+    }
+
+    /**
+     * Varlığın para birimi bilinmiyorsa piyasa türüne göre varsayılan: US, CRYPTO ve COMMODITY USD cinsindendir.
+     */
+    private static int defaultCurrencyIndex(MarketType market) {
+        if (market == null) return FxRateService.TRY;
+        return switch (market) {
+            case US, CRYPTO, COMMODITY -> FxRateService.USD;
+            case BIST -> FxRateService.TRY;
+        };
+    }
+
+    /**
+     * Tabloda tutarların yanında gösterilecek para birimi simgesi.
+     */
+    public static String currencySymbol(String currency) {
+        return switch (currency) {
+            case "TRY" -> "₺";
+            case "USD" -> "$";
+            case "EUR" -> "€";
+            case "GBP" -> "£";
+            default -> " " + currency;
+        };
+    }
+
+    private static MarketType parseMarket(String code) {
+        if (code == null) return null;
+        for (MarketType mt : MARKET_TYPES) {
+            if (mt.name().equalsIgnoreCase(code)) {
+                return mt;
+            }
+        }
+        return null;
+    }
+}
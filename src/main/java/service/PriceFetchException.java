@@ -0,0 +1,85 @@
+package service;
+
+/**
+ * Fiyat sağlayıcısından fiyat alınamadığında fırlatılır. Geçici hatalar (HTTP 429, 5xx,
+ * zaman aşımı, bağlantı hatası) retryable olarak işaretlenir ve tekrar denenebilir;
+ * sembolün bulunamaması gibi veri hataları tekrar denenmez.
+ */
+public class PriceFetchException extends RuntimeException {
+
+    private final boolean retryable;
+    private final int statusCode;
+    private final long retryAfterMs;
+    private final boolean circuitOpen;
+    private final boolean batchUnsupported;
+
+    public PriceFetchException(String message, boolean retryable) {
+        this(message, retryable, 0, 0, null);
+    }
+
+    public PriceFetchException(String message, boolean retryable, Throwable cause) {
+        this(message, retryable, 0, 0, cause);
+    }
+
+    /**
+     * @param statusCode HTTP durum kodu; HTTP dışı hatalarda 0
+     * @param retryAfterMs Sunucunun bildirdiği bekleme süresi (Retry-After); yoksa 0
+     */
+    public PriceFetchException(String message, boolean retryable, int statusCode, long retryAfterMs, Throwable cause) {
+        this(message, retryable, statusCode, retryAfterMs, cause, false, false);
+    }
+
+    private PriceFetchException(String message, boolean retryable, int statusCode, long retryAfterMs,
+                                Throwable cause, boolean circuitOpen, boolean batchUnsupported) {
+        super(message, cause);
+        this.retryable = retryable;
+        this.statusCode = statusCode;
+        this.retryAfterMs = retryAfterMs;
+        this.circuitOpen = circuitOpen;
+        this.batchUnsupported = batchUnsupported;
+    }
+
+    /**
+     * Devre kesici açıkken istek hiç yapılmadan reddedildiğinde fırlatılan hata.
+     */
+    public static PriceFetchException circuitOpen(String provider) {
+        return new PriceFetchException(provider + " devre açık, istek yapılmadı", false, 0, 0, null, true, false);
+    }
+
+    /**
+     * Sağlayıcı toplu çekimi artık yapamadığında (örn. toplu endpoint erişimi reddetti) varlık
+     * bazında döner. Fiyat alınamadı anlamına gelmez; varlık tek tek tekrar çekilmelidir.
+     */
+    public static PriceFetchException batchUnsupported(String provider, int statusCode) {
+        return new PriceFetchException(provider + " toplu çekim kullanılamıyor, varlık tek tek çekilmeli",
+                false, statusCode, 0, null, false, true);
+    }
+
+    /**
+     * HTTP yanıt koduna göre hata oluşturur: 429 ve 5xx geçici kabul edilir.
+     */
+    public static PriceFetchException forStatus(int statusCode, long retryAfterMs, String message) {
+        boolean retryable = statusCode == 429 || statusCode >= 500;
+        return new PriceFetchException(message, retryable, statusCode, retryAfterMs, null);
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+
+    public boolean isCircuitOpen() {
+        return circuitOpen;
+    }
+
+    public boolean isBatchUnsupported() {
+        return batchUnsupported;
+    }
+}
@@ -0,0 +1,88 @@
+package service;
+
+import model.Asset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Güncel fiyat sağlayıcısı. Fiyat çeken tüm kodlar (PriceHistorySeeder, PortfolioService,
+ * FxRateService) somut servis yerine bu arayüzü kullanır; kullanılacak uygulama
+ * PriceProviders.get() ile yapılandırmadan seçilir.
+ */
+public interface PriceProvider {
+
+    /**
+     * Toplu çekimde tek bir varlığın sonucu. Hata yoksa error null'dır.
+     */
+    record Result(Asset asset, double price, Exception error) {
+        public boolean ok() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Sağlayıcının yapılandırmadaki adı (örn: yahoo, local)
+     */
+    String name();
+
+    /**
+     * İsteklerin gittiği host; hız sınırı host başına uygulanır. Ağ kullanmayan
+     * sağlayıcılar için null.
+     */
+    default String host() {
+        return null;
+    }
+
+    /**
+     * Tek istekte çekilebilecek en fazla varlık sayısı. 1 ise sağlayıcı toplu çekimi
+     * desteklemiyordur ve çağıranlar varlıkları tek tek çekebilir.
+     */
+    default int maxBatchSize() {
+        return 1;
+    }
+
+    /**
+     * Varlığın güncel fiyatını çeker.
+     * @throws Exception Fiyat alınamazsa
+     */
+    double fetchCurrentPrice(Asset asset) throws Exception;
+
+    /**
+     * Varlıkların güncel fiyatlarını çeker. Sonuçlar giriş sırasıyla döner; bir varlığın hatası
+     * diğerlerini etkilemez. Varsayılan uygulama varlıkları sırayla tek tek çeker.
+     */
+    default List<Result> fetchCurrentPrices(List<Asset> assets) {
+        List<Result> results = new ArrayList<>(assets.size());
+        for (Asset a : assets) {
+            try {
+                results.add(new Result(a, fetchCurrentPrice(a), null));
+            } catch (Exception e) {
+                results.add(new Result(a, 0, e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * fetchCurrentPrice'ın sanal thread üzerinde çalışan asenkron hali.
+     */
+    default CompletableFuture<Double> fetchCurrentPriceAsync(Asset asset) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetchCurrentPrice(asset);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, PriceProviders.ASYNC_EXECUTOR);
+    }
+
+    /**
+     * fetchCurrentPrices'ın sanal thread üzerinde çalışan asenkron hali.
+     */
+    default CompletableFuture<List<Result>> fetchCurrentPricesAsync(List<Asset> assets) {
+        return CompletableFuture.supplyAsync(() -> fetchCurrentPrices(assets), PriceProviders.ASYNC_EXECUTOR);
+    }
+}
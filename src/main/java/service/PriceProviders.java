@@ -0,0 +1,64 @@
+package service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Yapılandırılmış fiyat sağlayıcısını döner.
+ * Seçim -Dprice.provider ile yapılır:
+ *   yahoo    -> YahooFinancePriceService (varsayılan)
+ *   yahoo-v7 -> PriceService (eski quote endpoint'i)
+ *   local    -> LocalPriceProvider (ağ gerektirmeyen, deterministik)
+ * Ağ üzerinden çalışan sağlayıcılar ResilientPriceProvider ile sarılır (hız sınırı,
+ * tekrar deneme, devre kesici).
+ */
+public final class PriceProviders {
+
+    // Asenkron varsayılan metotların kullandığı executor
+    static final ExecutorService ASYNC_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private static volatile PriceProvider instance;
+
+    private PriceProviders() {}
+
+    /**
+     * Uygulama genelinde paylaşılan sağlayıcı.
+     */
+    public static PriceProvider get() {
+        PriceProvider p = instance;
+        if (p == null) {
+            synchronized (PriceProviders.class) {
+                p = instance;
+                if (p == null) {
+                    p = create(System.getProperty("price.provider", "yahoo"));
+                    if (p.host() != null) {
+                        p = new ResilientPriceProvider(p);
+                    }
+                    instance = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Paylaşılan sağlayıcıyı değiştirir (testler ve ölçümler için).
+     */
+    public static void set(PriceProvider provider) {
+        synchronized (PriceProviders.class) {
+            instance = provider;
+        }
+    }
+
+    /**
+     * Adı verilen sağlayıcının yeni bir örneğini oluşturur.
+     */
+    public static PriceProvider create(String name) {
+        return switch (name.trim().toLowerCase()) {
+            case "yahoo" -> new YahooFinancePriceService();
+            case "yahoo-v7" -> new PriceService();
+            case "local" -> LocalPriceProvider.fromSystemProperties();
+            default -> throw new IllegalArgumentException("Bilinmeyen fiyat sağlayıcısı: " + name);
+        };
+    }
+}
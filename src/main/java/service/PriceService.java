@@ -3,15 +3,36 @@ package service;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import model.Asset;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 
-public class PriceService {
+public class PriceService implements PriceProvider {
+
+    @Override
+    public String name() {
+        return "yahoo-v7";
+    }
+
+    @Override
+    public String host() {
+        return "query1.finance.yahoo.com";
+    }
+
+    @Override
+    public double fetchCurrentPrice(Asset asset) {
+        String yahoo = asset.getYahooSymbol();
+        if (yahoo == null || yahoo.isBlank()) {
+            throw new RuntimeException("yahoo_symbol boş: asset_id=" + asset.getId());
+        }
+        return fetchYahooPrice(yahoo);
+    }
 
     public double fetchYahooPrice(String symbol) {
         try {
@@ -25,7 +46,7 @@ public class PriceService {
             conn.setReadTimeout(8000);
 
             int code = conn.getResponseCode();
-            if (code != 200) throw new RuntimeException("Yahoo HTTP " + code);
+            if (code != 200) throw PriceFetchException.forStatus(code, 0, "Yahoo HTTP " + code);
 
             StringBuilder sb = new StringBuilder();
             try (BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
@@ -42,6 +63,11 @@ public class PriceService {
             JsonObject item = result.get(0).getAsJsonObject();
 
             return item.get("regularMarketPrice").getAsDouble();
+        } catch (PriceFetchException e) {
+            throw e;
+        } catch (IOException e) {
+            // Zaman aşımı ve bağlantı hataları geçicidir
+            throw new PriceFetchException("Fiyat çekilemedi: " + symbol + " / " + e.getMessage(), true, e);
         } catch (Exception e) {
             throw new RuntimeException("Fiyat çekilemedi: " + symbol + " / " + e.getMessage(), e);
         }
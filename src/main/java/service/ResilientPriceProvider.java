@@ -0,0 +1,269 @@
+package service;
+
+import model.Asset;
+import util.CircuitBreaker;
+import util.MetricsRegistry;
+import util.TokenBucket;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fiyat sağlayıcısını hız sınırı, tekrar deneme ve devre kesici ile saran katman.
+ * - Aynı host'a giden tüm istekler host başına tek bir jeton kovasını paylaşır.
+ * - Geçici hatalar (429, 5xx, zaman aşımı, bağlantı hatası) üstel ve rastgele (full jitter)
+ *   beklemeyle en fazla MAX_ATTEMPTS kez denenir; sunucu Retry-After bildirdiyse ona uyulur.
+ * - Art arda geçici hatalarda devre açılır ve sağlayıcı bir süre hiç çağrılmaz; bu sırada
+ *   istekler hemen PriceFetchException ile reddedilir.
+ * Veri hataları (sembol bulunamadı vb.) tekrar denenmez ve devre kesiciyi etkilemez.
+ */
+public class ResilientPriceProvider implements PriceProvider {
+
+    private static final int MAX_ATTEMPTS = Integer.getInteger("price.retry.maxAttempts", 3);
+    private static final long BASE_DELAY_MS = Long.getLong("price.retry.baseDelayMs", 500L);
+    private static final long MAX_DELAY_MS = Long.getLong("price.retry.maxDelayMs", 10_000L);
+
+    private static final double RATE_PER_SECOND = Double.parseDouble(System.getProperty("price.rateLimit.perSecond", "5"));
+    private static final int BURST = Integer.getInteger("price.rateLimit.burst", 10);
+
+    private static final int BREAKER_FAILURES = Integer.getInteger("price.breaker.failureThreshold", 5);
+    private static final long BREAKER_OPEN_MS = Long.getLong("price.breaker.openMs", 30_000L);
+
+    // host -> jeton kovası; aynı host'u kullanan sağlayıcılar kovayı paylaşır
+    private static final Map<String, TokenBucket> BUCKETS = new ConcurrentHashMap<>();
+
+    /**
+     * Katman sayaçları.
+     * @param rateLimitWaits Hız sınırı yüzünden bekletilen istek sayısı
+     * @param shortCircuited Devre açıkken denenmeden reddedilen istek sayısı
+     */
+    public record Stats(long calls, long retries, long rateLimitWaits, long shortCircuited,
+                        long breakerOpened, long breakerHalfOpened, long breakerClosed,
+                        CircuitBreaker.State breakerState) {}
+
+    private final PriceProvider delegate;
+    private final TokenBucket bucket;
+    private final CircuitBreaker breaker;
+
+    // Sayaçlar MetricsRegistry'de sağlayıcı adıyla etiketlenir
+    private final MetricsRegistry.Counter calls;
+    private final MetricsRegistry.Counter retries;
+    private final MetricsRegistry.Counter rateLimitWaits;
+    private final MetricsRegistry.Counter shortCircuited;
+    private final MetricsRegistry.Counter breakerOpened;
+    private final MetricsRegistry.Counter breakerHalfOpened;
+    private final MetricsRegistry.Counter breakerClosed;
+
+    public ResilientPriceProvider(PriceProvider delegate) {
+        this.delegate = delegate;
+        this.bucket = BUCKETS.computeIfAbsent(delegate.host(), h -> new TokenBucket(RATE_PER_SECOND, BURST));
+        this.breaker = new CircuitBreaker(BREAKER_FAILURES, BREAKER_OPEN_MS, this::onTransition);
+
+        MetricsRegistry m = MetricsRegistry.getInstance();
+        String p = delegate.name();
+        calls = m.counter("price_provider_calls_total", "Sağlayıcıya yapılan istek sayısı", "provider", p);
+        retries = m.counter("price_provider_retries_total", "Geçici hata sonrası tekrar deneme sayısı", "provider", p);
+        rateLimitWaits = m.counter("price_provider_rate_limit_waits_total", "Hız sınırı yüzünden bekletilen istek sayısı", "provider", p);
+        shortCircuited = m.counter("price_provider_short_circuited_total", "Devre açıkken reddedilen istek sayısı", "provider", p);
+        breakerOpened = transitionCounter(m, p, CircuitBreaker.State.OPEN);
+        breakerHalfOpened = transitionCounter(m, p, CircuitBreaker.State.HALF_OPEN);
+        breakerClosed = transitionCounter(m, p, CircuitBreaker.State.CLOSED);
+        m.gauge("price_provider_breaker_state", "Devre kesici durumu (0=kapalı, 1=yarı açık, 2=açık)",
+                () -> switch (breaker.state()) {
+                    case CLOSED -> 0;
+                    case HALF_OPEN -> 1;
+                    case OPEN -> 2;
+                }, "provider", p);
+    }
+
+    private static MetricsRegistry.Counter transitionCounter(MetricsRegistry m, String provider, CircuitBreaker.State to) {
+        return m.counter("price_provider_breaker_transitions_total", "Devre kesici durum değişiklikleri",
+                "provider", provider, "to", to.name());
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public String host() {
+        return delegate.host();
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return delegate.maxBatchSize();
+    }
+
+    @Override
+    public double fetchCurrentPrice(Asset asset) throws Exception {
+        Exception last = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            if (attempt > 1) {
+                retries.inc();
+                backoff(attempt, last);
+            }
+            admit();
+            try {
+                double price = delegate.fetchCurrentPrice(asset);
+                breaker.onSuccess();
+                return price;
+            } catch (InterruptedException e) {
+                // Çağıran iptal etti; sağlayıcının sağlığı hakkında bilgi yok
+                breaker.onAbort();
+                throw e;
+            } catch (Exception e) {
+                last = e;
+                if (!isRetryable(e)) {
+                    // Sağlayıcı yanıt verdi; veri hatası sağlayıcının sağlığını etkilemez
+                    breaker.onSuccess();
+                    throw e;
+                }
+                breaker.onFailure();
+            }
+        }
+        throw last;
+    }
+
+    /**
+     * Sağlayıcı toplu çekimi destekliyorsa tek istekle çeker ve sadece geçici hatayla
+     * başarısız olan varlıkları tekrar dener. Desteklemiyorsa varlıklar tek tek çekilir.
+     * Sağlayıcı toplu çekimi bu sırada kapatırsa (batchUnsupported) o varlıklar da tek tek,
+     * her biri ayrı izin ve jetonla çekilir.
+     */
+    @Override
+    public List<Result> fetchCurrentPrices(List<Asset> assets) {
+        if (delegate.maxBatchSize() <= 1) {
+            return PriceProvider.super.fetchCurrentPrices(assets);
+        }
+
+        Result[] results = new Result[assets.size()];
+        List<Integer> pending = new ArrayList<>(assets.size());
+        for (int i = 0; i < assets.size(); i++) {
+            pending.add(i);
+        }
+
+        List<Integer> single = new ArrayList<>();
+        Exception last = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            try {
+                if (attempt > 1) {
+                    retries.inc();
+                    backoff(attempt, last);
+                }
+                admit();
+            } catch (Exception e) {
+                // Devre açık ya da bekleme kesildi: kalanlar bu hatayla döner
+                for (int i : pending) {
+                    results[i] = new Result(assets.get(i), 0, e);
+                }
+                return List.of(results);
+            }
+
+            List<Asset> batch = new ArrayList<>(pending.size());
+            for (int i : pending) {
+                batch.add(assets.get(i));
+            }
+            List<Result> fetched;
+            try {
+                fetched = delegate.fetchCurrentPrices(batch);
+            } catch (RuntimeException e) {
+                breaker.onAbort();
+                throw e;
+            }
+
+            List<Integer> retry = new ArrayList<>();
+            boolean anyResponse = false;
+            for (int k = 0; k < fetched.size(); k++) {
+                Result r = fetched.get(k);
+                int i = pending.get(k);
+                results[i] = r;
+                if (r.error() instanceof PriceFetchException pfe && pfe.isBatchUnsupported()) {
+                    // Sağlayıcı yanıt verdi; sadece toplu endpoint kullanılamıyor
+                    anyResponse = true;
+                    single.add(i);
+                } else if (r.ok() || !isRetryable(r.error())) {
+                    anyResponse = true;
+                } else {
+                    retry.add(i);
+                    last = r.error();
+                }
+            }
+            if (anyResponse) breaker.onSuccess(); else breaker.onFailure();
+            pending = retry;
+        }
+
+        for (int i : single) {
+            Asset a = assets.get(i);
+            try {
+                results[i] = new Result(a, fetchCurrentPrice(a), null);
+            } catch (InterruptedException e) {
+                // Kesildi: kalan varlıklar denenmez, son hatalarıyla döner
+                Thread.currentThread().interrupt();
+                results[i] = new Result(a, 0, e);
+                break;
+            } catch (Exception e) {
+                results[i] = new Result(a, 0, e);
+            }
+        }
+        return List.of(results);
+    }
+
+    public Stats stats() {
+        return new Stats(calls.get(), retries.get(), rateLimitWaits.get(), shortCircuited.get(),
+                breakerOpened.get(), breakerHalfOpened.get(), breakerClosed.get(), breaker.state());
+    }
+
+    /**
+     * Devre kesiciden izin alır ve host'un jeton kovasından bir jeton harcar. Jeton beklenirken
+     * kesilirse alınan izin onAbort ile bırakılır.
+     */
+    private void admit() throws InterruptedException {
+        if (!breaker.allowRequest()) {
+            shortCircuited.inc();
+            throw PriceFetchException.circuitOpen(delegate.name());
+        }
+        calls.inc();
+        try {
+            if (bucket.acquire() > 0) {
+                rateLimitWaits.inc();
+            }
+        } catch (InterruptedException e) {
+            // İstek yapılmadı; yarı açık devrenin deneme hakkı bırakılmazsa devre hiç kapanmaz
+            breaker.onAbort();
+            throw e;
+        }
+    }
+
+    /**
+     * attempt. deneme öncesi bekler: [0, min(MAX_DELAY, BASE * 2^(attempt-2))] aralığında rastgele.
+     * Sunucu Retry-After bildirdiyse en az o kadar beklenir.
+     */
+    private static void backoff(int attempt, Exception last) throws InterruptedException {
+        long cap = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(attempt - 2, 20));
+        long delay = ThreadLocalRandom.current().nextLong(cap + 1);
+        if (last instanceof PriceFetchException pfe && pfe.getRetryAfterMs() > 0) {
+            delay = Math.max(delay, Math.min(pfe.getRetryAfterMs(), MAX_DELAY_MS));
+        }
+        Thread.sleep(delay);
+    }
+
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof PriceFetchException pfe) return pfe.isRetryable();
+        return e instanceof IOException;
+    }
+
+    private void onTransition(CircuitBreaker.State from, CircuitBreaker.State to) {
+        switch (to) {
+            case OPEN -> breakerOpened.inc();
+            case HALF_OPEN -> breakerHalfOpened.inc();
+            case CLOSED -> breakerClosed.inc();
+        }
+        System.err.println("Fiyat sağlayıcısı " + delegate.name() + " devre kesici: " + from + " -> " + to);
+    }
+}
@@ -1,54 +1,492 @@
 package service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dao.OhlcDao.CandleSeries;
 import model.Asset;
+import util.CandleRecorder;
+import util.MetricsRegistry;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
 
-public class YahooFinancePriceService {
+public class YahooFinancePriceService implements PriceProvider {
 
-    private final HttpClient client = HttpClient.newHttpClient();
+    // Bir quote isteğinde gönderilecek en fazla sembol (-Dprice.yahoo.batchSize ile değiştirilebilir)
+    private static final int BATCH_SIZE = Integer.getInteger("price.yahoo.batchSize", 50);
+
+    // true ise tekli çekimde günün dakikalık mumları da indirilip CandleRecorder'a verilir
+    private static final boolean CAPTURE_CANDLES = Boolean.getBoolean("price.yahoo.captureCandles");
+
+    // Bağlantı ve istek zaman aşımları (-Dprice.http.connectTimeoutMs, -Dprice.http.requestTimeoutMs)
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(Long.getLong("price.http.connectTimeoutMs", 5_000L));
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMillis(Long.getLong("price.http.requestTimeoutMs", 10_000L));
+
+    private static final String HOST = "query1.finance.yahoo.com";
+
+    // v7 quote endpoint crumb/cookie istediğinde 401/403 döner; bir kez reddedildikten sonra
+    // toplu çekim kapatılır ve fiyatlar v8 chart endpoint'inden tek tek çekilir
+    private static volatile boolean quoteDenied;
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();
+    private static final MetricsRegistry.Counter BYTES = METRICS.counter(
+            "price_http_bytes_total", "Sağlayıcıdan okunan yanıt gövdesi (bayt)", "provider", "yahoo");
+    private static final MetricsRegistry.Histogram CHART_PARSE_TIME = METRICS.histogram(
+            "price_parse_seconds", "Yanıtın ayrıştırılma süresi", "provider", "yahoo", "endpoint", "chart");
+    private static final MetricsRegistry.Histogram QUOTE_PARSE_TIME = METRICS.histogram(
+            "price_parse_seconds", "Yanıtın ayrıştırılma süresi", "provider", "yahoo", "endpoint", "quote");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(CONNECT_TIMEOUT)
+            .build();
     private final ObjectMapper mapper = new ObjectMapper();
 
+    // Yakalanan mumların gönderileceği yer; null ise mum yakalanmaz
+    private final Consumer<CandleSeries> candleSink;
+
+    public YahooFinancePriceService() {
+        this(CAPTURE_CANDLES ? CandleRecorder.getInstance()::record : null);
+    }
+
+    /**
+     * @param candleSink Dakikalık mumların gönderileceği yer; null ise mum yakalanmaz
+     */
+    public YahooFinancePriceService(Consumer<CandleSeries> candleSink) {
+        this.candleSink = candleSink;
+    }
+
+    @Override
+    public String name() {
+        return "yahoo";
+    }
+
+    @Override
+    public String host() {
+        return HOST;
+    }
+
+    /**
+     * Mum yakalama açıkken mumlar yalnızca chart yanıtında geldiği için toplu quote
+     * kullanılmaz; her varlık chart endpoint'inden ayrı çekilir. Quote endpoint'i
+     * erişimi reddettiyse de (401/403) toplu çekim yapılmaz.
+     */
+    @Override
+    public int maxBatchSize() {
+        return candleSink != null || quoteDenied ? 1 : BATCH_SIZE;
+    }
+
+    /**
+     * Tek varlığın fiyatını v8 chart endpoint'inden çeker. Mum verisi gerekmiyorsa en küçük
+     * aralık (range=1d, interval=1d) istenir. Yanıt String'e tamponlanmadan akış üzerinden
+     * okunur ve meta.regularMarketPrice bulunduğu anda okuma bırakılır.
+     * Mum yakalama açıksa günün dakikalık mumları istenir ve yanıtın kalanından okunur.
+     * Veritabanında kaydı olmayan varlıklar (id &lt;= 0, örn. FxRateService'in kur çiftleri)
+     * için mum yakalanmaz; ohlc_1m.asset_id assets tablosuna bağlıdır.
+     */
+    @Override
     public double fetchCurrentPrice(Asset asset) throws Exception {
         String yahoo = asset.getYahooSymbol();
         if (yahoo == null || yahoo.isBlank()) {
             throw new RuntimeException("yahoo_symbol boş: asset_id=" + asset.getId());
         }
 
+        boolean capture = candleSink != null && asset.getId() > 0;
+
         // v8 chart endpoint (quote yerine bunu kullan)
-        String url = "https://query1.finance.yahoo.com/v8/finance/chart/" + yahoo + "?interval=1m&range=1d";
+        String url = "https://" + HOST + "/v8/finance/chart/" + yahoo
+                + (capture ? "?interval=1m&range=1d" : "?interval=1d&range=1d");
+
+        HttpResponse<InputStream> res = client.send(request(url), HttpResponse.BodyHandlers.ofInputStream());
 
-        HttpRequest req = HttpRequest.newBuilder()
+        try (CountingInputStream body = new CountingInputStream(res.body())) {
+            try {
+                if (res.statusCode() != 200) {
+                    throw httpError(res, snippet(body));
+                }
+                // Ayrıştırma süresine ağdan okuma da dahildir; yanıt akış halinde okunur
+                long started = System.nanoTime();
+                try (JsonParser p = mapper.getFactory().createParser(body)) {
+                    double price = readRegularMarketPrice(p, yahoo);
+                    if (capture) {
+                        captureCandles(p, asset.getId(), yahoo);
+                    }
+                    CHART_PARSE_TIME.observeNanos(System.nanoTime() - started);
+                    return price;
+                }
+            } finally {
+                BYTES.inc(body.count);
+            }
+        }
+    }
+
+    /**
+     * chart.result[0].meta.regularMarketPrice alanına kadar ilerler; aradaki alanlar
+     * ağaç kurulmadan atlanır.
+     */
+    private static double readRegularMarketPrice(JsonParser p, String yahoo) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT || !moveToField(p, "chart")
+                || p.currentToken() != JsonToken.START_OBJECT || !moveToField(p, "result")
+                || p.currentToken() != JsonToken.START_ARRAY
+                || p.nextToken() != JsonToken.START_OBJECT) {
+            throw new RuntimeException("chart.result boş: " + yahoo);
+        }
+        if (!moveToField(p, "meta") || p.currentToken() != JsonToken.START_OBJECT
+                || !moveToField(p, "regularMarketPrice")
+                || p.currentToken() == null || !p.currentToken().isNumeric()) {
+            throw new RuntimeException("regularMarketPrice yok: " + yahoo);
+        }
+        return p.getDoubleValue();
+    }
+
+    /**
+     * Fiyat okunduktan sonra yanıtın kalanından dakikalık mumları okur ve candleSink'e verir.
+     * Mum okunamazsa fiyat çekimi başarısız sayılmaz.
+     */
+    private void captureCandles(JsonParser p, int assetId, String yahoo) {
+        try {
+            CandleSeries series = readCandles(p, assetId, System.currentTimeMillis() / 1000L);
+            if (series != null && series.size() > 0) {
+                candleSink.accept(series);
+            }
+        } catch (Exception e) {
+            System.err.println("Mumlar okunamadı: " + yahoo + " => " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parser meta.regularMarketPrice değerindeyken meta'nın kalanını atlar ve result[0]
+     * içindeki timestamp ile indicators.quote[0] dizilerini okur. Eksik değerli mumlar ve
+     * henüz kapanmamış son dakika atlanır.
+     * @param nowEpochSeconds Şu anki zaman; bu zamandan sonra kapanan mumlar alınmaz
+     * @return Mumlar; yanıtta mum yoksa null
+     */
+    static CandleSeries readCandles(JsonParser p, int assetId, long nowEpochSeconds) throws IOException {
+        // meta'nın kalan alanları
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            p.nextToken();
+            p.skipChildren();
+        }
+
+        double[] timestamps = null;
+        double[][] quote = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken t = p.nextToken();
+            if ("timestamp".equals(field) && t == JsonToken.START_ARRAY) {
+                timestamps = readNumberArray(p);
+            } else if ("indicators".equals(field) && t == JsonToken.START_OBJECT) {
+                quote = readFirstQuote(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+        if (timestamps == null || quote == null) return null;
+        for (double[] column : quote) {
+            if (column == null) return null;
+        }
+
+        int n = timestamps.length;
+        for (double[] column : quote) {
+            n = Math.min(n, column.length);
+        }
+
+        long[] ts = new long[n];
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        long[] volume = new long[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            long start = (long) timestamps[i];
+            double o = quote[0][i], h = quote[1][i], l = quote[2][i], c = quote[3][i];
+            if (start + 60 > nowEpochSeconds || Double.isNaN(o) || Double.isNaN(h) || Double.isNaN(l) || Double.isNaN(c)) {
+                continue;
+            }
+            ts[size] = start;
+            open[size] = o;
+            high[size] = h;
+            low[size] = l;
+            close[size] = c;
+            volume[size] = Double.isNaN(quote[4][i]) ? 0L : (long) quote[4][i];
+            size++;
+        }
+
+        return new CandleSeries(assetId,
+                Arrays.copyOf(ts, size),
+                Arrays.copyOf(open, size),
+                Arrays.copyOf(high, size),
+                Arrays.copyOf(low, size),
+                Arrays.copyOf(close, size),
+                Arrays.copyOf(volume, size));
+    }
+
+    /**
+     * indicators nesnesini sonuna kadar okur; quote[0] içindeki open/high/low/close/volume
+     * dizilerini bu sırayla döner. quote yoksa null.
+     */
+    private static double[][] readFirstQuote(JsonParser p) throws IOException {
+        double[][] quote = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken t = p.nextToken();
+            if (!"quote".equals(field) || t != JsonToken.START_ARRAY) {
+                p.skipChildren();
+                continue;
+            }
+
+            JsonToken first = p.nextToken();
+            if (first == JsonToken.START_OBJECT) {
+                quote = new double[5][];
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String column = p.currentName();
+                    JsonToken ct = p.nextToken();
+                    int idx = switch (column) {
+                        case "open" -> 0;
+                        case "high" -> 1;
+                        case "low" -> 2;
+                        case "close" -> 3;
+                        case "volume" -> 4;
+                        default -> -1;
+                    };
+                    if (idx >= 0 && ct == JsonToken.START_ARRAY) {
+                        quote[idx] = readNumberArray(p);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            }
+            // quote dizisinin kalan elemanları
+            if (first != JsonToken.END_ARRAY) {
+                JsonToken x;
+                while ((x = p.nextToken()) != JsonToken.END_ARRAY && x != null) {
+                    p.skipChildren();
+                }
+            }
+        }
+        return quote;
+    }
+
+    /**
+     * Parser bir dizinin başındayken sayıları okur; null elemanlar NaN olur.
+     */
+    private static double[] readNumberArray(JsonParser p) throws IOException {
+        double[] values = new double[512];
+        int size = 0;
+        JsonToken t;
+        while ((t = p.nextToken()) != JsonToken.END_ARRAY && t != null) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            if (t.isNumeric()) {
+                values[size++] = p.getDoubleValue();
+            } else {
+                p.skipChildren();
+                values[size++] = Double.NaN;
+            }
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Parser bir nesnenin içindeyken verilen alana kadar ilerler ve alanın değerinde durur.
+     * Diğer alanların değerleri atlanır.
+     * @return Alan bulunduysa true; nesne alan bulunmadan bittiyse false
+     */
+    private static boolean moveToField(JsonParser p, String name) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            if (name.equals(field)) {
+                return true;
+            }
+            p.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Varlıkların fiyatlarını v7 quote endpoint'i ile toplu çeker: semboller BATCH_SIZE'lık
+     * parçalara bölünür ve her parça için tek istek yapılır. Aynı yahoo sembolüne sahip
+     * varlıklar aynı fiyatı alır; semboller büyük harfe çevrilerek eşleştirilir. Yanıtta
+     * olmayan semboller ve başarısız parçalar varlık bazında hata olarak döner.
+     * Quote endpoint'i erişimi reddederse (401/403) toplu çekim kapatılır (maxBatchSize 1 olur);
+     * o parça ve kalan parçalardaki varlıklar PriceFetchException.batchUnsupported hatasıyla döner.
+     * Bu varlıklar burada tek tek çekilmez: çağıran (ResilientPriceProvider) her birini hız sınırı
+     * ve devre kesiciden geçerek fetchCurrentPrice ile tekrar çeker.
+     */
+    @Override
+    public List<Result> fetchCurrentPrices(List<Asset> assets) {
+        Result[] results = new Result[assets.size()];
+
+        // Sembol -> bu sembolü kullanan varlıkların indeksleri (giriş sırası korunur)
+        Map<String, List<Integer>> bySymbol = new LinkedHashMap<>();
+        for (int i = 0; i < assets.size(); i++) {
+            Asset a = assets.get(i);
+            String yahoo = a.getYahooSymbol();
+            if (yahoo == null || yahoo.isBlank()) {
+                results[i] = new Result(a, 0, new RuntimeException("yahoo_symbol boş: asset_id=" + a.getId()));
+                continue;
+            }
+            bySymbol.computeIfAbsent(normalizeSymbol(yahoo), k -> new ArrayList<>(1)).add(i);
+        }
+
+        List<String> symbols = new ArrayList<>(bySymbol.keySet());
+        for (int from = 0; from < symbols.size(); from += BATCH_SIZE) {
+            List<String> chunk = symbols.subList(from, Math.min(from + BATCH_SIZE, symbols.size()));
+
+            Map<String, Double> prices = Map.of();
+            Exception chunkError = null;
+            if (quoteDenied) {
+                // Başka bir çağrı toplu çekimi kapattı
+                chunkError = PriceFetchException.batchUnsupported(name(), 0);
+            } else {
+                try {
+                    prices = fetchQuoteChunk(chunk);
+                } catch (PriceFetchException e) {
+                    if (e.getStatusCode() == 401 || e.getStatusCode() == 403) {
+                        if (!quoteDenied) {
+                            System.err.println("Yahoo quote endpoint erişimi reddetti (HTTP " + e.getStatusCode()
+                                    + "), fiyatlar chart endpoint'inden tek tek çekilecek");
+                        }
+                        quoteDenied = true;
+                        chunkError = PriceFetchException.batchUnsupported(name(), e.getStatusCode());
+                    } else {
+                        chunkError = e;
+                    }
+                } catch (Exception e) {
+                    chunkError = e;
+                }
+            }
+
+            for (String symbol : chunk) {
+                Double price = prices.get(symbol);
+                for (int i : bySymbol.get(symbol)) {
+                    Asset a = assets.get(i);
+                    if (price != null) {
+                        results[i] = new Result(a, price, null);
+                    } else if (chunkError != null) {
+                        results[i] = new Result(a, 0, chunkError);
+                    } else {
+                        results[i] = new Result(a, 0, new RuntimeException("regularMarketPrice yok: " + symbol));
+                    }
+                }
+            }
+        }
+        return List.of(results);
+    }
+
+    private static String normalizeSymbol(String yahoo) {
+        return yahoo.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Tek bir quote isteği ile verilen sembollerin fiyatlarını çeker.
+     * @return sembol (büyük harf) -> regularMarketPrice (fiyatı olmayan semboller yer almaz)
+     */
+    private Map<String, Double> fetchQuoteChunk(List<String> symbols) throws Exception {
+        String joined = URLEncoder.encode(String.join(",", symbols), StandardCharsets.UTF_8);
+        String url = "https://" + HOST + "/v7/finance/quote?symbols=" + joined;
+
+        HttpResponse<String> res = client.send(request(url), HttpResponse.BodyHandlers.ofString());
+
+        // JSON yanıtı ASCII olduğundan karakter sayısı bayt sayısına eşittir
+        BYTES.inc(res.body().length());
+        if (res.statusCode() != 200) {
+            throw httpError(res, snippet(res.body()));
+        }
+
+        long started = System.nanoTime();
+        JsonNode result = mapper.readTree(res.body()).path("quoteResponse").path("result");
+        Map<String, Double> prices = new HashMap<>(symbols.size() * 2);
+        for (JsonNode item : result) {
+            JsonNode symbol = item.path("symbol");
+            JsonNode p = item.path("regularMarketPrice");
+            if (symbol.isTextual() && p.isNumber()) {
+                prices.put(normalizeSymbol(symbol.asText()), p.asDouble());
+            }
+        }
+        QUOTE_PARSE_TIME.observeNanos(System.nanoTime() - started);
+        return prices;
+    }
+
+    /**
+     * 200 dışı yanıtı PriceFetchException'a çevirir; 429 ve 5xx tekrar denenebilir.
+     * Retry-After başlığı (saniye) varsa bekleme süresi olarak taşınır.
+     */
+    private static PriceFetchException httpError(HttpResponse<?> res, String bodySnippet) {
+        long retryAfterMs = 0;
+        String retryAfter = res.headers().firstValue("Retry-After").orElse(null);
+        if (retryAfter != null) {
+            try {
+                retryAfterMs = Long.parseLong(retryAfter.trim()) * 1000L;
+            } catch (NumberFormatException ignored) {
+                // Tarih biçimindeki Retry-After desteklenmiyor; varsayılan bekleme kullanılır
+            }
+        }
+        return PriceFetchException.forStatus(res.statusCode(), retryAfterMs,
+                "YahooFinance HTTP " + res.statusCode() + " body=" + bodySnippet);
+    }
+
+    private static HttpRequest request(String url) {
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
                 .GET()
                 .header("User-Agent", "Mozilla/5.0")
                 .header("Accept", "application/json")
                 .header("Referer", "https://finance.yahoo.com/")
                 .build();
+    }
 
-        HttpResponse<String> res = client.send(req, HttpResponse.BodyHandlers.ofString());
+    /**
+     * Okunan bayt sayısını tutan akış; erken bırakılan yanıtlarda sadece okunan kısım sayılır.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
 
-        if (res.statusCode() != 200) {
-            throw new RuntimeException("YahooFinance HTTP " + res.statusCode() + " body=" +
-                    (res.body() == null ? "" : res.body().substring(0, Math.min(200, res.body().length()))));
+        CountingInputStream(InputStream in) {
+            super(in);
         }
 
-        JsonNode root = mapper.readTree(res.body());
-        JsonNode result0 = root.path("chart").path("result").get(0);
-        if (result0 == null || result0.isNull()) {
-            throw new RuntimeException("chart.result boş: " + yahoo);
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
         }
 
-        // meta.regularMarketPrice çoğu enstrümanda dolu
-        JsonNode p = result0.path("meta").path("regularMarketPrice");
-        if (p.isMissingNode() || p.isNull()) {
-            throw new RuntimeException("regularMarketPrice yok: " + yahoo);
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
         }
-        return p.asDouble();
+    }
+
+    private static String snippet(String body) {
+        return body == null ? "" : body.substring(0, Math.min(200, body.length()));
+    }
+
+    private static String snippet(InputStream body) throws IOException {
+        return new String(body.readNBytes(200), StandardCharsets.UTF_8);
     }
 }
@@ -0,0 +1,205 @@
+package ui;
+
+import model.Asset;
+import model.MarketType;
+import service.AssetCatalog;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.LineBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Varlık alanı için öneri listesi. Her tuş vuruşunda AssetCatalog'dan sıralı eşleşmeler
+ * alınır ve alanın altındaki açılır listede gösterilir. Yukarı/aşağı ok ile gezilir,
+ * Enter veya tıklama ile seçilir, Escape ile kapanır. Katalog henüz yüklenmediyse öneri
+ * gösterilmez; alan serbest metin olarak çalışmaya devam eder.
+ */
+class AssetTypeahead {
+
+    private static final int MAX_SUGGESTIONS = 8;
+
+    // Yeni işlem penceresinin koyu tema renkleri
+    private static final Color PANEL_BG = new Color(55, 55, 55);
+    private static final Color BORDER = new Color(80, 80, 80);
+    private static final Color TEXT = new Color(220, 220, 220);
+    private static final Color TEXT_MUTED = new Color(160, 160, 160);
+    private static final Color SELECTION = new Color(40, 120, 200); // Koyu mavi seçim
+    private static final Font FONT_SYMBOL = new Font("Segoe UI", Font.BOLD, 13);
+    private static final Font FONT_NAME = new Font("Segoe UI", Font.PLAIN, 12);
+
+    private final JTextField field;
+    private final Supplier<MarketType> market;
+    private final Consumer<Asset> onSelect;
+    private final AssetCatalog catalog = AssetCatalog.getInstance();
+
+    private final DefaultListModel<Asset> model = new DefaultListModel<>();
+    private final JList<Asset> list = new JList<>(model);
+    private final JPopupMenu popup = new JPopupMenu();
+
+    // Seçilen sembol alana yazılırken öneri listesi tekrar açılmasın
+    private boolean selecting;
+
+    /**
+     * @param market Sıralamada öncelik verilecek seçili piyasa
+     * @param onSelect Listeden bir varlık seçildiğinde çağrılır (alan metni sembole ayarlandıktan sonra)
+     */
+    AssetTypeahead(JTextField field, Supplier<MarketType> market, Consumer<Asset> onSelect) {
+        this.field = field;
+        this.market = market;
+        this.onSelect = onSelect;
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.setBackground(PANEL_BG);
+        list.setCellRenderer(new SuggestionRenderer());
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int i = list.locationToIndex(e.getPoint());
+                if (i >= 0) select(model.get(i));
+            }
+        });
+
+        popup.setFocusable(false);
+        popup.setBorder(new LineBorder(BORDER, 1));
+        popup.add(list);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                // Belge değişikliği sırasında popup açılmaz; olay bitince güncellenir
+                SwingUtilities.invokeLater(AssetTypeahead.this::refresh);
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                SwingUtilities.invokeLater(AssetTypeahead.this::refresh);
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (!popup.isVisible()) return;
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN -> move(1);
+                    case KeyEvent.VK_UP -> move(-1);
+                    case KeyEvent.VK_ENTER -> {
+                        Asset a = list.getSelectedValue();
+                        if (a != null) select(a);
+                    }
+                    case KeyEvent.VK_ESCAPE -> popup.setVisible(false);
+                    default -> {
+                        return;
+                    }
+                }
+                e.consume();
+            }
+        });
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                popup.setVisible(false);
+            }
+        });
+
+        // Pencere her açıldığında katalog tazelenir; yeni eklenen varlıklar da önerilir
+        catalog.refresh();
+    }
+
+    /**
+     * Piyasa seçimi değiştiğinde sıralamayı yeniler.
+     */
+    void refresh() {
+        if (selecting) return;
+        String text = field.getText();
+        if (text.isBlank() || !catalog.isLoaded() || !field.isShowing()) {
+            popup.setVisible(false);
+            return;
+        }
+
+        List<Asset> matches = catalog.search(text, market.get(), MAX_SUGGESTIONS);
+        model.clear();
+        for (Asset a : matches) {
+            model.addElement(a);
+        }
+        if (matches.isEmpty()) {
+            popup.setVisible(false);
+            return;
+        }
+        list.setSelectedIndex(0);
+        list.setVisibleRowCount(matches.size());
+        popup.setPopupSize(field.getWidth(), list.getPreferredScrollableViewportSize().height + 2);
+        if (popup.isVisible()) {
+            popup.revalidate();
+            popup.repaint();
+        } else if (field.hasFocus()) {
+            popup.show(field, 0, field.getHeight());
+        }
+    }
+
+    private void move(int delta) {
+        int n = model.getSize();
+        if (n == 0) return;
+        int i = Math.floorMod(list.getSelectedIndex() + delta, n);
+        list.setSelectedIndex(i);
+        list.ensureIndexIsVisible(i);
+    }
+
+    private void select(Asset a) {
+        popup.setVisible(false);
+        selecting = true;
+        try {
+            field.setText(a.getSymbol() != null ? a.getSymbol().trim() : "");
+        } finally {
+            // Doküman olaylarından sonra çalışan refresh çağrıları da atlanmalı
+            SwingUtilities.invokeLater(() -> selecting = false);
+        }
+        if (onSelect != null) onSelect.accept(a);
+    }
+
+    /**
+     * Sembol solda kalın, isim ve piyasa sağda soluk yazılır. Bileşenler bir kez oluşturulur.
+     */
+    private static final class SuggestionRenderer implements ListCellRenderer<Asset> {
+        private final JPanel row = new JPanel(new BorderLayout(12, 0));
+        private final JLabel lblSymbol = new JLabel();
+        private final JLabel lblName = new JLabel();
+
+        SuggestionRenderer() {
+            row.setBorder(new EmptyBorder(4, 8, 4, 8));
+            lblSymbol.setFont(FONT_SYMBOL);
+            lblName.setFont(FONT_NAME);
+            lblName.setHorizontalAlignment(SwingConstants.RIGHT);
+            row.add(lblSymbol, BorderLayout.WEST);
+            row.add(lblName, BorderLayout.CENTER);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Asset> list, Asset a, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            row.setBackground(isSelected ? SELECTION : PANEL_BG);
+            lblSymbol.setText(a.getSymbol());
+            lblSymbol.setForeground(TEXT);
+            String name = a.getName() != null ? a.getName() : "";
+            lblName.setText(a.getMarket() != null ? name + " • " + a.getMarket() : name);
+            lblName.setForeground(isSelected ? TEXT : TEXT_MUTED);
+            return row;
+        }
+    }
+}
@@ -5,10 +5,15 @@ package ui;
 import com.formdev.flatlaf.FlatClientProperties;
 import com.formdev.flatlaf.themes.FlatMacDarkLaf;
 import com.formdev.flatlaf.themes.FlatMacLightLaf;
+import model.MarketType;
 import model.User;
 import dao.TradeDao;
-import dao.PriceHistoryDao;
 import dao.PortfolioValueDao;
+import service.MarketDataScheduler;
+import service.PortfolioValuation;
+import service.PortfolioValuationService;
+import util.Lttb;
+import util.PriceEventBus;
 import util.PriceHistorySeeder;
 import org.knowm.xchart.XChartPanel;
 import org.knowm.xchart.XYChart;
@@ -18,17 +23,13 @@ import javax.swing.*;
 import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableCellEditor;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.text.DecimalFormat;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 public class MainPanel extends JPanel {
@@ -36,10 +37,9 @@ public class MainPanel extends JPanel {
     private User user;
 
     private JTable portfolioTable;
-    private DefaultTableModel portfolioModel;
+    private PortfolioTableModel portfolioModel;
 
     private JPanel chartPanel;
-    private JPanel watchListContent;
     private DonutChartPanel donutChartPanel;
     private PortfolioLineChartPanel lineChartPanel;
 
@@ -59,11 +59,30 @@ public class MainPanel extends JPanel {
     // Tema toggle butonu referansı
     private JButton themeToggleButton;
     
-    // Otomatik fiyat güncelleme timer'ı (1 dakika)
-    private javax.swing.Timer autoRefreshTimer;
+    // Portföydeki varlıkların merkezi fiyat zamanlayıcısındaki aboneliği
+    private MarketDataScheduler.Subscription priceSubscription;
+
+    // Arka planda çalışan portföy yükleme işi ve son yayınlanan görüntü
+    private SwingWorker<PortfolioSnapshot, Void> loadWorker;
+    private long loadGeneration = 0;
+    private PortfolioSnapshot lastSnapshot;
+    // Yükleme sürerken gelen fiyatlar; varlık başına en son fiyat tutulur, yükleme bitince uygulanır
+    private final java.util.Map<Integer, PriceEventBus.PriceUpdate> pendingPriceUpdates = new java.util.LinkedHashMap<>();
 
     private static final Font FONT_REGULAR = new Font("Segoe UI", Font.PLAIN, 13);
     private static final Font FONT_BOLD = new Font("Segoe UI", Font.BOLD, 13);
+    private static final Font FONT_SMALL = new Font("Segoe UI", Font.PLAIN, 11);
+
+    // Tablo çizimi sırasında kullanılan sabitler (her hücre çiziminde yeniden oluşturulmaz)
+    private static final javax.swing.border.Border CELL_PADDING = new EmptyBorder(0, 8, 0, 8);
+    private static final Color SELECTED_BG_DARK = new Color(45, 45, 45);
+    private static final Color SELECTED_BG_LIGHT = new Color(227, 242, 253);
+    private static final Color PL_POSITIVE = new Color(25, 135, 84);
+    private static final Color PL_NEGATIVE = new Color(178, 34, 34);
+    private static final Color PL_POSITIVE_SELECTED_LIGHT = new Color(0, 100, 0);
+    private static final Color PL_NEGATIVE_SELECTED_LIGHT = new Color(139, 0, 0);
+    private static final Color PL_POSITIVE_SELECTED_DARK = new Color(76, 175, 80);
+    private static final Color PL_NEGATIVE_SELECTED_DARK = new Color(244, 67, 54);
     
     // Renk getter metodları (ThemeManager'dan alır)
     private Color getBG() { return ThemeManager.getBackground(); }
@@ -75,10 +94,6 @@ public class MainPanel extends JPanel {
     private Color getTABLE_ROW_ALT() { return ThemeManager.getTableRowAlt(); }
     private static final DecimalFormat PRICE_FMT = new DecimalFormat("#,##0.00");
     private static final DecimalFormat PCT_FMT = new DecimalFormat("#,##0.00'%'");
-    // Adet için format: gereksiz sıfırları göstermez, yeterli hassasiyet sağlar (örn: 0.0005, 3.5, 10)
-    private static final DecimalFormat QTY_FMT = new DecimalFormat("#,##0.########");
-    // Sabit kur: 1 USD = 43 TL
-    private static final double USD_TO_TRY = 43.0;
 
     public MainPanel(User user) {
         this.user = user;
@@ -94,6 +109,8 @@ public class MainPanel extends JPanel {
      */
     public void setUser(User user) {
         this.user = user;
+        // Önceki kullanıcının portföyü için biriken fiyatlar yeni görüntüye uygulanmaz
+        pendingPriceUpdates.clear();
         // Kullanıcı değiştiğinde UI'ı yeniden yükle
         loadPortfolioFromDb();
     }
@@ -125,8 +142,11 @@ public class MainPanel extends JPanel {
 
         loadPortfolioFromDb();
         
-        // Otomatik fiyat güncelleme timer'ını başlat (1 dakika = 60000 ms)
-        startAutoRefreshTimer();
+        // Otomatik fiyat güncellemesi: zamanlayıcı piyasa saatlerine göre çeker, kaydedilen fiyatlar
+        // yayından gelir ve sadece değişen satırlar güncellenir
+        priceSubscription = MarketDataScheduler.getInstance().subscribe();
+        PriceEventBus.getInstance().subscribe(
+                updates -> SwingUtilities.invokeLater(() -> applyPriceUpdates(updates)));
     }
     
     /**
@@ -139,7 +159,82 @@ public class MainPanel extends JPanel {
         }
         return (JFrame) parent;
     }
+    /**
+     * Arka planda hesaplanıp EDT'de yayınlanan, değiştirilmeyen portföy görüntüsü.
+     * Tablo, metrik kartları ve halka grafik aynı değerlemeyi kullanır.
+     * @param userId Görüntünün ait olduğu kullanıcı
+     */
+    private record PortfolioSnapshot(
+            int userId,
+            PortfolioValuation valuation,
+            List<PortfolioValueDao.PortfolioValue> lineValues
+    ) {}
+
+    /**
+     * Portföyü veritabanından arka planda yükler; sonuç hazır olduğunda tablo, metrik kartları
+     * ve grafikler EDT üzerinde tek seferde güncellenir. Yeni bir yükleme başladığında
+     * önceki (artık geçersiz) yükleme iptal edilir ve sonucu yayınlanmaz.
+     */
     private void loadPortfolioFromDb() {
+        if (loadWorker != null && !loadWorker.isDone()) {
+            loadWorker.cancel(true);
+        }
+
+        final long generation = ++loadGeneration;
+        final int userId = user.getId();
+
+        loadWorker = new SwingWorker<PortfolioSnapshot, Void>() {
+            @Override
+            protected PortfolioSnapshot doInBackground() {
+                return buildSnapshot(userId, this::isCancelled);
+            }
+
+            @Override
+            protected void done() {
+                // İptal edilmiş ya da yerine yenisi başlatılmış yüklemeleri yayınlama
+                if (isCancelled() || generation != loadGeneration) {
+                    return;
+                }
+                try {
+                    PortfolioSnapshot snapshot = get();
+                    if (snapshot != null) {
+                        applySnapshot(snapshot);
+                        applyPendingPriceUpdates();
+                    }
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+        };
+        loadWorker.execute();
+    }
+
+    /**
+     * Portföy görüntüsünü hesaplar. EDT dışında çalışır; Swing bileşenlerine dokunmaz.
+     * @return İşlem iptal edildiyse null
+     */
+    private static PortfolioSnapshot buildSnapshot(int userId, java.util.function.BooleanSupplier cancelled) {
+        // Pozisyonlar, son fiyatlar (tek sorgu) ve toplamlar tek geçişte hesaplanır
+        PortfolioValuation valuation = new PortfolioValuationService().valuate(userId);
+        if (cancelled.getAsBoolean()) return null;
+
+        // Portföy toplam değerini veritabanına kaydet
+        PortfolioValueDao portfolioValueDao = new PortfolioValueDao();
+        portfolioValueDao.insert(userId, valuation.totalValue());
+        if (cancelled.getAsBoolean()) return null;
+
+        List<PortfolioValueDao.PortfolioValue> lineValues = loadLineChartValues(portfolioValueDao, userId);
+
+        return new PortfolioSnapshot(userId, valuation, lineValues);
+    }
+
+    /**
+     * Hazır portföy görüntüsünü tabloya, metrik kartlarına ve grafiklere uygular (EDT).
+     */
+    private void applySnapshot(PortfolioSnapshot snapshot) {
+        lastSnapshot = snapshot;
+        subscribeToPrices(snapshot.valuation());
+
         // Eğer tablo üzerinde bir hücre editleme modundaysa önce durdur
         if (portfolioTable != null && portfolioTable.isEditing()) {
             TableCellEditor editor = portfolioTable.getCellEditor();
@@ -148,54 +243,84 @@ public class MainPanel extends JPanel {
             }
         }
 
-        portfolioModel.setRowCount(0);
+        PortfolioValuation v = snapshot.valuation();
+        portfolioModel.setValuation(v);
 
-        dao.PortfolioDao dao = new dao.PortfolioDao();
-        var rows = dao.getPortfolioSummary(user.getId());
-        PriceHistoryDao priceHistoryDao = new PriceHistoryDao();
+        updateMetrics(v.totalValue(), v.totalPl());
+        adjustTableHeight(); // Tablo yüksekliğini satır sayısına göre ayarla
+        updateDonutChart(v); // Halka grafiği güncelle
+        updateLineChart(); // Line chart'ı güncelle
+    }
 
-        double totalValue = 0.0; // TL karşılığı
-        double totalCost = 0.0;  // TL karşılığı
+    /**
+     * Yeni fiyatları tabloya, metrik kartlarına ve halka grafiğe uygular (EDT). Tablo yeniden
+     * kurulmaz; sadece fiyatı değişen satırların Tutar, Güncel Fiyat ve Kar/Zarar hücreleri
+     * güncellenir. Toplamlar değişen satırların farkıyla hesaplanır.
+     */
+    private void applyPriceUpdates(List<PriceEventBus.PriceUpdate> updates) {
+        // Yükleme sürerken eski görüntü güncellenmez; yeni görüntü fiyatları okuduktan sonra
+        // gelmiş olabilecek fiyatlar saklanır ve görüntü yayınlanınca uygulanır
+        if (loadWorker != null && !loadWorker.isDone()) {
+            for (PriceEventBus.PriceUpdate u : updates) {
+                pendingPriceUpdates.put(u.assetId(), u);
+            }
+            return;
+        }
+        if (lastSnapshot == null) return;
+        if (lastSnapshot.userId() != user.getId()) return;
+
+        PortfolioValuation v = lastSnapshot.valuation();
+        int[] rows = new int[updates.size()];
+        double[] prices = new double[updates.size()];
+        int n = 0;
+        for (PriceEventBus.PriceUpdate u : updates) {
+            int i = v.indexOf(u.assetId());
+            if (i < 0 || v.price(i) == u.price()) continue;
+            rows[n] = i;
+            prices[n] = u.price();
+            n++;
+        }
+        if (n == 0) return;
 
-        for (var r : rows) {
-            // 1) prices_history tablosundan son fiyatı dene
-            Double lastPrice = priceHistoryDao.findLatestPrice(r.assetId);
-            double currentPrice = (lastPrice != null) ? lastPrice : r.avgCost;
+        rows = java.util.Arrays.copyOf(rows, n);
+        PortfolioValuation updated = v.withPrices(rows, java.util.Arrays.copyOf(prices, n));
+        lastSnapshot = new PortfolioSnapshot(lastSnapshot.userId(), updated, lastSnapshot.lineValues());
 
-            // 2) Piyasa türüne göre USD pozisyonları TL'ye çevir (US, CRYPTO ve COMMODITY USD cinsinden)
-            String market = r.market != null ? r.market.toUpperCase() : "";
-            double fx = ("US".equals(market) || "CRYPTO".equals(market) || "COMMODITY".equals(market)) ? USD_TO_TRY : 1.0;
+        // Model satır indeksi değerleme indeksidir
+        portfolioModel.updatePrices(updated, rows);
 
-            double valueTl = currentPrice * fx * r.quantity;
-            double costTl = r.avgCost * fx * r.quantity;
-            double plTl = valueTl - costTl;
+        updateMetrics(updated.totalValue(), updated.totalPl());
+        updateDonutChart(updated);
+        if (lineChartPanel != null) {
+            lineChartPanel.appendValue(java.time.LocalDate.now(), updated.totalValue());
+        }
+        recordPortfolioValue(lastSnapshot.userId(), updated.totalValue());
+    }
 
-            totalValue += valueTl;
-            totalCost += costTl;
+    /**
+     * Yükleme sırasında biriken fiyatları yeni yayınlanan görüntüye uygular (EDT).
+     * Görüntünün okuduğu fiyatla aynı olanlar applyPriceUpdates'te atlanır.
+     */
+    private void applyPendingPriceUpdates() {
+        if (pendingPriceUpdates.isEmpty()) return;
+        List<PriceEventBus.PriceUpdate> updates = new ArrayList<>(pendingPriceUpdates.values());
+        pendingPriceUpdates.clear();
+        applyPriceUpdates(updates);
+    }
 
-            portfolioModel.addRow(new Object[]{
-                    new String[]{r.symbol, r.name != null ? r.name : ""}, // Varlık: [sembol, isim] - index 0
-                    r.market,                                              // Piyasa - index 1
-                    r.quantity,     // Adet - index 2 (görüntüleme için)
-                    valueTl,        // Tutar (TL cinsinden) - index 3 (gizli, görüntüleme için)
-                    r.avgCost,      // Ort. Maliyet - index 4
-                    currentPrice,   // Güncel fiyat - index 5
-                    plTl,           // Kar/Zarar - index 6
-                    "Sil",          // Sil butonu - index 7
-                    r.assetId       // ASSET_ID - index 8 (gizli)
-            });
-        }
-        
-        // Portföy toplam değerini veritabanına kaydet
-        PortfolioValueDao portfolioValueDao = new PortfolioValueDao();
-        portfolioValueDao.insert(user.getId(), totalValue);
-        
-        updateMetrics(totalValue, totalValue - totalCost);
-        refreshWatchlist();
-        adjustTableHeight(); // Tablo yüksekliğini satır sayısına göre ayarla
-        updateDonutChart(rows, priceHistoryDao); // Halka grafiği güncelle
-        updateLineChart(); // Line chart'ı güncelle
+    /**
+     * Güncel portföy değerini arka planda kaydeder.
+     */
+    private void recordPortfolioValue(int userId, double totalValue) {
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                new PortfolioValueDao().insert(userId, totalValue);
+                return null;
+            }
+        }.execute();
     }
+
     private JPanel buildHeader() {
         JPanel container = new JPanel();
         container.setOpaque(false);
@@ -254,15 +379,7 @@ public class MainPanel extends JPanel {
     }
 
     private JPanel buildPortfolioSection() {
-        portfolioModel = new DefaultTableModel(
-                new Object[]{"Varlık", "Piyasa Türü ", "Adet/Tutar", "Tutar (Gizli)", "Ort. Maliyet", "Güncel Fiyat", "Kar/Zarar", "", "ASSET_ID"},
-                0
-        ) {
-            @Override public boolean isCellEditable(int row, int column) {
-                // Sadece \"Sil\" sütunu (index 6) tıklanabilir olsun
-                return column == 6;
-            }
-        };
+        portfolioModel = new PortfolioTableModel();
         portfolioTable = new JTable(portfolioModel) {
             @Override
             public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
@@ -272,103 +389,42 @@ public class MainPanel extends JPanel {
                 // Hücrelerin iç boşluğu ve odak çerçevesi
                 if (c instanceof JComponent jc) {
                     // Tüm hücreler için dengeli yatay padding
-                    jc.setBorder(new EmptyBorder(0, 8, 0, 8));
+                    jc.setBorder(CELL_PADDING);
                 }
                 
-                if (!isRowSelected(row)) {
+                boolean isSelected = isRowSelected(row);
+                if (!isSelected) {
                     c.setBackground((row % 2 == 0) ? getPANEL_BG() : getTABLE_ROW_ALT());
                     c.setForeground(getTEXT());
                 } else {
                     // Seçili satır için tema değişimine göre renkleri ayarla
                     if (ThemeManager.isDarkTheme()) {
-                        c.setBackground(new Color(45, 45, 45)); // #2d2d2d
+                        c.setBackground(SELECTED_BG_DARK); // #2d2d2d
                         c.setForeground(Color.WHITE);
                     } else {
-                        c.setBackground(new Color(227, 242, 253)); // #E3F2FD
+                        c.setBackground(SELECTED_BG_LIGHT); // #E3F2FD
                         c.setForeground(Color.BLACK);
                     }
                 }
-                if (column == 2) { // Adet/Tutar sütunu (görüntüleme kolonu)
-                    if (showQuantityInsteadOfAmount) {
-                        // Adet göster - model'de index 2'de Adet var
-                        Object qtyObj = portfolioModel.getValueAt(row, 2);
-                        if (qtyObj instanceof Number) {
-                            double qty = ((Number) qtyObj).doubleValue();
-                            ((JLabel) c).setText(QTY_FMT.format(qty));
-                        }
-                    } else {
-                        // Tutar göster (TL cinsinden) - model'de index 3'te Tutar var
-                        Object tutarObj = portfolioModel.getValueAt(row, 3);
-                        if (tutarObj instanceof Number) {
-                            double tutar = ((Number) tutarObj).doubleValue();
-                            ((JLabel) c).setText("₺" + PRICE_FMT.format(tutar));
-                        }
-                    }
-                }
-                if (column == 3) { // Ort. Maliyet sütunu
-                    Object value = getValueAt(row, column);
-                    if (value instanceof Number) {
-                        double avgCost = ((Number) value).doubleValue();
-                        // Piyasa türüne göre para birimi ekle
-                        Object marketObj = getValueAt(row, 1); // Piyasa sütunu
-                        String marketStr = marketObj != null ? marketObj.toString().toUpperCase() : "";
-                        String currencySymbol = ("US".equals(marketStr) || "CRYPTO".equals(marketStr)) ? "$" : "₺";
-                        ((JLabel) c).setText(PRICE_FMT.format(avgCost) + currencySymbol);
-                    }
-                }
-                if (column == 4) { // Güncel Fiyat sütunu
-                    Object value = getValueAt(row, column);
-                    if (value instanceof Number) {
-                        double price = ((Number) value).doubleValue();
-                        // Piyasa türüne göre para birimi ekle
-                        Object marketObj = getValueAt(row, 1); // Piyasa sütunu
-                        String marketStr = marketObj != null ? marketObj.toString().toUpperCase() : "";
-                        String currencySymbol = ("US".equals(marketStr) || "CRYPTO".equals(marketStr)) ? "$" : "₺";
-                        ((JLabel) c).setText(PRICE_FMT.format(price) + currencySymbol);
-                    }
-                }
-                if (column == 5) { // Kar/Zarar sütunu
-                    double plTl = Double.parseDouble(getValueAt(row, column).toString());
-
-                    // Yüzde veya miktar gösterimi
-                    String displayText;
-                    if (showPlAsPercentage) {
-                        // Yüzde hesapla: (plTl / costTl) * 100
-                        Object qtyObj = portfolioModel.getValueAt(row, 2); // Adet
-                        Object avgCostObj = portfolioModel.getValueAt(row, 4); // Ort. Maliyet
-                        Object marketObj = getValueAt(row, 1); // Piyasa
-
-                        double qty = qtyObj instanceof Number ? ((Number) qtyObj).doubleValue() : 0;
-                        double avgCost = avgCostObj instanceof Number ? ((Number) avgCostObj).doubleValue() : 0;
-                        String marketStr = marketObj != null ? marketObj.toString().toUpperCase() : "";
-                        double fx = ("US".equals(marketStr) || "CRYPTO".equals(marketStr) || "COMMODITY".equals(marketStr)) ? USD_TO_TRY : 1.0;
-                        double costTl = avgCost * fx * qty;
-
-                        double percentage = (costTl != 0) ? (plTl / costTl) * 100.0 : 0.0;
-                        displayText = (percentage >= 0 ? "+" : "") + PCT_FMT.format(percentage);
-                    } else {
-                        // Miktar gösterimi (2 ondalık basamak)
-                        DecimalFormat plFmt = new DecimalFormat("#,##0.00");
-                        displayText = (plTl >= 0 ? "+₺" : "-₺") + plFmt.format(Math.abs(plTl));
-                    }
 
-                    ((JLabel) c).setText(displayText);
-                    
+                // Metinler modelde hazır; burada sadece kar/zarar rengi seçilir
+                int modelColumn = convertColumnIndexToModel(column);
+                if (modelColumn == PortfolioTableModel.COL_PL) {
+                    boolean positive = portfolioModel.plPositive(convertRowIndexToModel(row));
                     // Kar/zarar renkleri - seçili satırda okunabilirlik için kontrast kontrolü
-                    boolean isSelected = isRowSelected(row);
                     if (isSelected && !ThemeManager.isDarkTheme()) {
                         // Açık temada seçili satır: daha koyu renkler kullan
-                        c.setForeground(plTl >= 0 ? new Color(0, 100, 0) : new Color(139, 0, 0)); // Koyu yeşil/kırmızı
+                        c.setForeground(positive ? PL_POSITIVE_SELECTED_LIGHT : PL_NEGATIVE_SELECTED_LIGHT);
                     } else if (isSelected && ThemeManager.isDarkTheme()) {
                         // Koyu temada seçili satır: daha açık renkler kullan
-                        c.setForeground(plTl >= 0 ? new Color(76, 175, 80) : new Color(244, 67, 54)); // Açık yeşil/kırmızı
+                        c.setForeground(positive ? PL_POSITIVE_SELECTED_DARK : PL_NEGATIVE_SELECTED_DARK);
                     } else {
                         // Seçili olmayan satır: normal renkler
-                        c.setForeground(plTl >= 0 ? new Color(25, 135, 84) : new Color(178, 34, 34)); // Koyu yeşil/kırmızı
+                        c.setForeground(positive ? PL_POSITIVE : PL_NEGATIVE);
                     }
                 }
                 // Tüm veri hücrelerini sola hizala (buton sütunu hariç)
-                if (c instanceof JLabel label && column != 6) {
+                if (c instanceof JLabel label && modelColumn != PortfolioTableModel.COL_DELETE) {
                     label.setHorizontalAlignment(SwingConstants.LEFT);
                 }
                 return c;
@@ -402,8 +458,8 @@ public class MainPanel extends JPanel {
 
                 // Geçerli bir satıra tıklanmışsa ve satır zaten seçiliyse, seçimleri temizle
                 if (row >= 0 && row == portfolioTable.getSelectedRow()) {
-                    // Sil butonu sütununa tıklanmadıysa (6. sütun) sadece seçimi kaldır
-                    if (col != 6) {
+                    // Sil butonu sütununa tıklanmadıysa sadece seçimi kaldır
+                    if (col < 0 || portfolioTable.convertColumnIndexToModel(col) != PortfolioTableModel.COL_DELETE) {
                         portfolioTable.clearSelection();
                         return;
                     }
@@ -414,70 +470,49 @@ public class MainPanel extends JPanel {
             }
         });
 
-        // Tutar (Gizli) sütununu gizle (index 3)
-        int tutarColumnIndex = -1;
-        for (int i = 0; i < portfolioTable.getColumnCount(); i++) {
-            if (portfolioTable.getColumnName(i).equals("Tutar (Gizli)")) {
-                tutarColumnIndex = i;
-                break;
-            }
-        }
-        if (tutarColumnIndex >= 0) {
-            portfolioTable.getColumnModel().removeColumn(portfolioTable.getColumnModel().getColumn(tutarColumnIndex));
-        }
-        
-        // ASSET_ID sütununu gizle
-        int assetIdColumnIndex = -1;
-        for (int i = 0; i < portfolioTable.getColumnCount(); i++) {
-            if (portfolioTable.getColumnName(i).equals("ASSET_ID")) {
-                assetIdColumnIndex = i;
-                break;
-            }
-        }
-        if (assetIdColumnIndex >= 0) {
-            portfolioTable.getColumnModel().removeColumn(portfolioTable.getColumnModel().getColumn(assetIdColumnIndex));
-        }
-
         // Varlık sütunu için özel renderer (sembol + isim)
-        portfolioTable.getColumnModel().getColumn(0).setCellRenderer(new AssetCellRenderer());
-
-        // Sil butonu için renderer/editor
-        portfolioTable.getColumnModel().getColumn(6).setCellRenderer((table, value, isSelected, hasFocus, row, column) -> {
-            JButton btn = new JButton();
-            btn.setIcon(new TrashIcon());
-            btn.setToolTipText("Sil");
-            styleButton(btn, new Color(178, 34, 34)); // Koyu kırmızı
-            return btn;
-        });
-        portfolioTable.getColumnModel().getColumn(6).setCellEditor(new DeleteButtonEditor(new JCheckBox()));
+        portfolioTable.getColumnModel().getColumn(PortfolioTableModel.COL_ASSET).setCellRenderer(new AssetCellRenderer());
+
+        // Sil butonu için renderer/editor; renderer her çizimde aynı butonu kullanır
+        JButton deleteButtonRenderer = new JButton();
+        deleteButtonRenderer.setIcon(new TrashIcon());
+        deleteButtonRenderer.setToolTipText("Sil");
+        styleButton(deleteButtonRenderer, new Color(178, 34, 34)); // Koyu kırmızı
+        portfolioTable.getColumnModel().getColumn(PortfolioTableModel.COL_DELETE)
+                .setCellRenderer((table, value, isSelected, hasFocus, row, column) -> deleteButtonRenderer);
+        portfolioTable.getColumnModel().getColumn(PortfolioTableModel.COL_DELETE).setCellEditor(new DeleteButtonEditor(new JCheckBox()));
 
         // Adet/Tutar sütunu için özel başlık renderer (dropdown menü ile)
-        portfolioTable.getColumnModel().getColumn(2).setHeaderRenderer(new TableCellRenderer() {
-            @Override
-            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
-                JPanel panel = new JPanel(new BorderLayout());
+        portfolioTable.getColumnModel().getColumn(PortfolioTableModel.COL_QTY).setHeaderRenderer(new TableCellRenderer() {
+            // Bileşenler bir kez oluşturulur; her çizimde sadece metin ve renkler güncellenir
+            private final JPanel panel = new JPanel(new BorderLayout());
+            private final JLabel textLabel = new JLabel();
+
+            {
                 panel.setOpaque(true);
-                panel.setBackground(getTABLE_HEADER());
                 panel.setBorder(new EmptyBorder(0, 8, 0, 8));
-                
-                // Metin ve ikon için ayrı label'lar
-                JLabel textLabel = new JLabel(showQuantityInsteadOfAmount ? "Adet" : "Tutar");
                 textLabel.setFont(FONT_BOLD);
-                textLabel.setForeground(getTEXT());
                 textLabel.setHorizontalAlignment(SwingConstants.LEFT);
-                
+
                 // Dropdown ikonu
                 JLabel iconLabel = new JLabel();
                 iconLabel.setIcon(new DropdownIcon());
                 iconLabel.setBorder(new EmptyBorder(0, 6, 0, 0));
-                
+
                 // İkon ve metni yan yana yerleştir
                 JPanel contentPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
                 contentPanel.setOpaque(false);
                 contentPanel.add(textLabel);
                 contentPanel.add(iconLabel);
-                
+
                 panel.add(contentPanel, BorderLayout.CENTER);
+            }
+
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+                panel.setBackground(getTABLE_HEADER());
+                textLabel.setText(showQuantityInsteadOfAmount ? "Adet" : "Tutar");
+                textLabel.setForeground(getTEXT());
                 return panel;
             }
         });
@@ -498,13 +533,14 @@ public class MainPanel extends JPanel {
         header.addMouseListener(new java.awt.event.MouseAdapter() {
             @Override
             public void mouseClicked(java.awt.event.MouseEvent e) {
-                int col = header.columnAtPoint(e.getPoint());
-                if (col == 2) { // Adet/Tutar sütunu - dropdown menü göster
+                int viewCol = header.columnAtPoint(e.getPoint());
+                if (viewCol < 0) return;
+                int col = portfolioTable.convertColumnIndexToModel(viewCol);
+                if (col == PortfolioTableModel.COL_QTY) { // Adet/Tutar sütunu - dropdown menü göster
                     showQuantityAmountDropdown(e.getComponent(), e.getX(), e.getY());
-                } else if (col == 5) { // Kar/Zarar sütunu
+                } else if (col == PortfolioTableModel.COL_PL) { // Kar/Zarar sütunu
                     showPlAsPercentage = !showPlAsPercentage;
-                    // Tabloyu yeniden çiz
-                    portfolioTable.repaint();
+                    portfolioModel.setShowPlAsPercentage(showPlAsPercentage);
                 }
             }
         });
@@ -560,7 +596,7 @@ public class MainPanel extends JPanel {
             dlg.setVisible(true);
         });
         btnRefresh.addActionListener(e -> {
-            refreshPrices(false, btnRefresh); // Manuel yenileme - bildirim göster
+            refreshPrices(btnRefresh); // Manuel yenileme - bildirim göster
         });
         titleBar.add(title, BorderLayout.WEST);
         titleBar.add(actions, BorderLayout.EAST);
@@ -616,38 +652,16 @@ public class MainPanel extends JPanel {
     /**
      * Piyasa türlerine göre portföy dağılımını hesaplar ve halka grafiği günceller
      */
-    private void updateDonutChart(java.util.List<dao.PortfolioDao.PortfolioRow> rows, PriceHistoryDao priceHistoryDao) {
+    private void updateDonutChart(PortfolioValuation valuation) {
         if (donutChartPanel == null) return;
 
-        // Piyasa türlerine göre toplam değerleri hesapla
-        double bistValue = 0.0;
-        double usValue = 0.0;
-        double cryptoValue = 0.0;
-        double commodityValue = 0.0;
-
-        for (var r : rows) {
-            Double lastPrice = priceHistoryDao.findLatestPrice(r.assetId);
-            double currentPrice = (lastPrice != null) ? lastPrice : r.avgCost;
-            String market = r.market != null ? r.market.toUpperCase() : "";
-            double fx = ("US".equals(market) || "CRYPTO".equals(market) || "COMMODITY".equals(market)) ? USD_TO_TRY : 1.0;
-            double valueTl = currentPrice * fx * r.quantity;
-            switch (market) {
-                case "BIST":
-                    bistValue += valueTl;
-                    break;
-                case "US":
-                    usValue += valueTl;
-                    break;
-                case "CRYPTO":
-                    cryptoValue += valueTl;
-                    break;
-                case "COMMODITY":
-                    commodityValue += valueTl;
-                    break;
-            }
+        // Piyasa toplamları değerleme sırasında hesaplandı
+        List<DonutChartPanel.Segment> segments = new ArrayList<>(MarketType.values().length);
+        for (MarketType market : MarketType.values()) {
+            segments.add(new DonutChartPanel.Segment(DonutChartPanel.labelOf(market),
+                    valuation.marketTotal(market), DonutChartPanel.colorOf(market)));
         }
-
-        donutChartPanel.updateData(bistValue, usValue, cryptoValue, commodityValue);
+        donutChartPanel.updateData(segments);
     }
 
     private JPanel createMetricCard(String title, String value, String subtitle, Color accent) {
@@ -746,105 +760,11 @@ public class MainPanel extends JPanel {
      */
     private void refreshPortfolioValues() {
         // Mevcut değerleri al ve güncelle
-        if (lblPortfolioValue != null && lblTotalPl != null) {
-            // Değerleri tekrar hesapla
-            dao.PortfolioDao dao = new dao.PortfolioDao();
-            var rows = dao.getPortfolioSummary(user.getId());
-            PriceHistoryDao priceHistoryDao = new PriceHistoryDao();
-            
-            double totalValue = 0.0;
-            double totalCost = 0.0;
-            
-            for (var r : rows) {
-                Double lastPrice = priceHistoryDao.findLatestPrice(r.assetId);
-                double currentPrice = (lastPrice != null) ? lastPrice : r.avgCost;
-                String market = r.market != null ? r.market.toUpperCase() : "";
-                double fx = ("US".equals(market) || "CRYPTO".equals(market) || "COMMODITY".equals(market)) ? USD_TO_TRY : 1.0;
-                double valueTl = currentPrice * fx * r.quantity;
-                double costTl = r.avgCost * fx * r.quantity;
-                totalValue += valueTl;
-                totalCost += costTl;
-            }
-            
-            updateMetrics(totalValue, totalValue - totalCost);
-        }
-    }
-
-    private JPanel createWatchCard(String symbol, String price, String percent, boolean positive) {
-        JPanel card = new JPanel(new BorderLayout());
-        card.setBackground(getPANEL_BG());
-        card.setBorder(new CompoundBorder(
-                new EmptyBorder(0, 0, 10, 0),
-                new LineBorder(getBORDER(), 1, true)
-        ));
-        card.setMaximumSize(new Dimension(Integer.MAX_VALUE, 64));
-
-        JLabel lblSymbol = new JLabel(symbol);
-        lblSymbol.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        lblSymbol.setForeground(getTEXT());
-
-        JLabel lblPrice = new JLabel(price);
-        lblPrice.setFont(FONT_BOLD);
-        lblPrice.setForeground(getTEXT());
-        lblPrice.setHorizontalAlignment(SwingConstants.RIGHT);
-
-        JLabel lblPercent = new JLabel(percent);
-        lblPercent.setFont(FONT_REGULAR);
-        lblPercent.setForeground(positive ? new Color(25, 135, 84) : new Color(178, 34, 34)); // Koyu yeşil/kırmızı
-        lblPercent.setHorizontalAlignment(SwingConstants.RIGHT);
-
-        JPanel left = new JPanel();
-        left.setOpaque(false);
-        left.setLayout(new BoxLayout(left, BoxLayout.Y_AXIS));
-        left.setBorder(new EmptyBorder(8, 10, 8, 0));
-        left.add(lblSymbol);
-        left.add(Box.createVerticalStrut(2));
-        JLabel info = new JLabel("Canlı • TL");
-        info.setFont(new Font("Segoe UI", Font.PLAIN, 11));
-        info.setForeground(getTEXT_MUTED());
-        left.add(info);
-
-        JPanel right = new JPanel(new GridLayout(2, 1));
-        right.setOpaque(false);
-        right.setBorder(new EmptyBorder(8, 10, 8, 10));
-        right.add(lblPrice);
-        right.add(lblPercent);
-
-        card.add(left, BorderLayout.WEST);
-        card.add(right, BorderLayout.EAST);
-
-        return card;
-    }
-
-    private void refreshWatchlist() {
-        if (watchListContent == null || portfolioModel == null) return;
-
-        watchListContent.removeAll();
-
-        for (int i = 0; i < portfolioModel.getRowCount(); i++) {
-            Object symbolObj = portfolioModel.getValueAt(i, 0);
-            Object qtyObj = portfolioModel.getValueAt(i, 2);
-            Object avgCostObj = portfolioModel.getValueAt(i, 4);
-            Object priceObj = portfolioModel.getValueAt(i, 5);
-            Object plObj = portfolioModel.getValueAt(i, 6);
-
-            String symbol = symbolObj != null ? symbolObj.toString() : "-";
-            double qty = qtyObj instanceof Number ? ((Number) qtyObj).doubleValue() : 0;
-            double avgCost = avgCostObj instanceof Number ? ((Number) avgCostObj).doubleValue() : 0;
-            double price = priceObj instanceof Number ? ((Number) priceObj).doubleValue() : 0;
-            double pl = plObj instanceof Number ? ((Number) plObj).doubleValue() : 0;
-
-            String priceText = PRICE_FMT.format(price);
-            double costBasis = qty * avgCost;
-            double plPct = (costBasis > 0) ? (pl / costBasis) * 100.0 : 0.0;
-            String pctText = (plPct >= 0 ? "+" : "") + PCT_FMT.format(plPct);
-            boolean positive = plPct >= 0;
-
-            watchListContent.add(createWatchCard(symbol, priceText, pctText, positive));
+        // Son yüklenen değerleme kullanılır; veritabanına tekrar gidilmez
+        if (lblPortfolioValue != null && lblTotalPl != null && lastSnapshot != null) {
+            PortfolioValuation v = lastSnapshot.valuation();
+            updateMetrics(v.totalValue(), v.totalPl());
         }
-        watchListContent.add(Box.createVerticalGlue());
-        watchListContent.revalidate();
-        watchListContent.repaint();
     }
 
     private void updateMetrics(double totalValue, double totalPl) {
@@ -875,7 +795,7 @@ public class MainPanel extends JPanel {
         JMenuItem adetItem = new JMenuItem("Adet");
         adetItem.addActionListener(e -> {
             showQuantityInsteadOfAmount = true;
-            portfolioTable.repaint();
+            portfolioModel.setShowQuantity(true);
             // Başlığı da güncelle
             portfolioTable.getTableHeader().repaint();
         });
@@ -890,7 +810,7 @@ public class MainPanel extends JPanel {
         JMenuItem tutarItem = new JMenuItem("Tutar");
         tutarItem.addActionListener(e -> {
             showQuantityInsteadOfAmount = false;
-            portfolioTable.repaint();
+            portfolioModel.setShowQuantity(false);
             // Başlığı da güncelle
             portfolioTable.getTableHeader().repaint();
         });
@@ -1004,11 +924,11 @@ public class MainPanel extends JPanel {
         
         if (ThemeManager.isDarkTheme()) {
             // Koyu tema: koyu gri arka plan, beyaz yazı
-            portfolioTable.setSelectionBackground(new Color(45, 45, 45)); // #2d2d2d
+            portfolioTable.setSelectionBackground(SELECTED_BG_DARK); // #2d2d2d
             portfolioTable.setSelectionForeground(Color.WHITE);
         } else {
             // Açık tema: açık mavi arka plan, siyah yazı
-            portfolioTable.setSelectionBackground(new Color(227, 242, 253)); // #E3F2FD
+            portfolioTable.setSelectionBackground(SELECTED_BG_LIGHT); // #E3F2FD
             portfolioTable.setSelectionForeground(Color.BLACK);
         }
     }
@@ -1064,7 +984,7 @@ public class MainPanel extends JPanel {
             donutChartPanel.repaint();
         }
         if (lineChartPanel != null) {
-            // Line chart'ı verilerle birlikte yeniden oluştur (tema değişimine uyum için)
+            // Line chart'ı yeniden çiz (tema değişimine uyum için)
             updateLineChart();
         }
         
@@ -1510,54 +1430,48 @@ public class MainPanel extends JPanel {
      * Varlık sütunu için özel renderer (sembol + isim)
      */
     private class AssetCellRenderer extends DefaultTableCellRenderer {
-        @Override
-        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
-                                                      boolean hasFocus, int row, int column) {
-            JPanel panel = new JPanel();
+        // Bileşenler bir kez oluşturulur; her çizimde sadece metin ve renkler güncellenir
+        private final JPanel panel = new JPanel();
+        private final JLabel symbolLabel = new JLabel();
+        private final JLabel nameLabel = new JLabel();
+
+        AssetCellRenderer() {
             panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
             panel.setOpaque(true);
             panel.setBorder(new EmptyBorder(4, 8, 4, 8));
-            
-            // Arka plan rengi
-            if (isSelected) {
-                if (ThemeManager.isDarkTheme()) {
-                    panel.setBackground(new Color(45, 45, 45));
-                } else {
-                    panel.setBackground(new Color(227, 242, 253));
-                }
-            } else {
-                panel.setBackground((row % 2 == 0) ? getPANEL_BG() : getTABLE_ROW_ALT());
-            }
-            
-            // Sembol ve isim bilgilerini al
-            String symbol = "";
-            String name = "";
-            if (value instanceof String[]) {
-                String[] assetInfo = (String[]) value;
-                if (assetInfo.length >= 2) {
-                    symbol = assetInfo[0] != null ? assetInfo[0] : "";
-                    name = assetInfo[1] != null ? assetInfo[1] : "";
-                }
-            } else if (value != null) {
-                symbol = value.toString();
-            }
-            
+
             // Sembol label'ı (kalın, üstte)
-            JLabel symbolLabel = new JLabel(symbol);
             symbolLabel.setFont(FONT_BOLD);
-            symbolLabel.setForeground(isSelected ? (ThemeManager.isDarkTheme() ? Color.WHITE : Color.BLACK) : getTEXT());
             symbolLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-            
+
             // İsim label'ı (küçük, hemen altında, muted renk)
-            JLabel nameLabel = new JLabel(name != null && !name.isEmpty() ? name : "-");
-            nameLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
-            nameLabel.setForeground(getTEXT_MUTED());
+            nameLabel.setFont(FONT_SMALL);
             nameLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-            
+
             panel.add(symbolLabel);
             panel.add(Box.createVerticalStrut(2)); // Çok küçük boşluk (2 piksel)
             panel.add(nameLabel);
-            
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                      boolean hasFocus, int row, int column) {
+            // Arka plan rengi
+            if (isSelected) {
+                panel.setBackground(ThemeManager.isDarkTheme() ? SELECTED_BG_DARK : SELECTED_BG_LIGHT);
+            } else {
+                panel.setBackground((row % 2 == 0) ? getPANEL_BG() : getTABLE_ROW_ALT());
+            }
+
+            // Sembol hücre değeridir, isim modelden okunur
+            String symbol = value != null ? value.toString() : "";
+            String name = portfolioModel.name(table.convertRowIndexToModel(row));
+
+            symbolLabel.setText(symbol);
+            symbolLabel.setForeground(isSelected ? (ThemeManager.isDarkTheme() ? Color.WHITE : Color.BLACK) : getTEXT());
+            nameLabel.setText(name != null && !name.isEmpty() ? name : "-");
+            nameLabel.setForeground(getTEXT_MUTED());
+
             return panel;
         }
     }
@@ -1593,9 +1507,8 @@ public class MainPanel extends JPanel {
         @Override
         public void actionPerformed(java.awt.event.ActionEvent e) {
             int modelRow = portfolioTable.convertRowIndexToModel(row);
-            Object assetIdObj = portfolioModel.getValueAt(modelRow, 8); // gizli ASSET_ID sütunu
-            if (assetIdObj instanceof Number) {
-                int assetId = ((Number) assetIdObj).intValue();
+            if (modelRow >= 0 && modelRow < portfolioModel.getRowCount()) {
+                int assetId = portfolioModel.assetId(modelRow);
 
                 // Özel onay dialog'u göster
                 boolean confirmed = showDeleteConfirmationDialog();
@@ -2061,13 +1974,18 @@ public class MainPanel extends JPanel {
         return result[0];
     }
     /**
-     * Halka grafik (donut chart) çizen panel
+     * Halka grafik (donut chart) çizen panel. Halka ve gösterge bir kez görüntüye çizilir;
+     * görüntü sadece veriler, tema, boyut veya bakiye gizleme durumu değiştiğinde yeniden
+     * oluşturulur. Diğer tüm repaint'ler (tablo üzerinde gezinme vb.) tek bir drawImage'dır.
      */
     private class DonutChartPanel extends JPanel {
-        private double bistValue = 0;
-        private double usValue = 0;
-        private double cryptoValue = 0;
-        private double commodityValue = 0;
+
+        /**
+         * Halkanın bir dilimi
+         * @param label Göstergede yazılan ad
+         * @param value Dilimin değeri (TL); 0 veya negatif dilimler çizilmez
+         */
+        record Segment(String label, double value, Color color) {}
 
         // Piyasa renkleri
         private static final Color COLOR_BIST = new Color(66, 153, 225); // Mavi
@@ -2075,37 +1993,108 @@ public class MainPanel extends JPanel {
         private static final Color COLOR_CRYPTO = new Color(255, 193, 7); // Sarı/Altın
         private static final Color COLOR_COMMODITY = new Color(220, 53, 69); // Kırmızı
 
+        private static final Font FONT_TOTAL = new Font("Segoe UI", Font.BOLD, 16);
+        private static final Font FONT_LEGEND = new Font("Segoe UI", Font.BOLD, 12); // Daha büyük ve kalın font
+        private static final BasicStroke STROKE_SEGMENT = new BasicStroke(2f);
+        private static final BasicStroke STROKE_THIN = new BasicStroke(1f);
+        private static final int LEGEND_BOX = 14; // Biraz daha büyük kutu
+        private static final int LEGEND_LINE_HEIGHT = 20; // Daha fazla boşluk
+
+        private List<Segment> segments = List.of();
+        private double total;
+
+        // Önbellek görüntüsü ve hangi durum için çizildiği
+        private java.awt.image.BufferedImage cache;
+        private int cacheWidth;
+        private int cacheHeight;
+        private double cacheScale;
+        private ThemeManager.Theme cacheTheme;
+        private boolean cacheValueVisible;
+
         public DonutChartPanel() {
             setOpaque(false);
             setPreferredSize(new Dimension(320, 200)); // Genişliği artırdık
         }
 
-        public void updateData(double bist, double us, double crypto, double commodity) {
-            this.bistValue = bist;
-            this.usValue = us;
-            this.cryptoValue = crypto;
-            this.commodityValue = commodity;
+        static Color colorOf(MarketType market) {
+            return switch (market) {
+                case BIST -> COLOR_BIST;
+                case US -> COLOR_US;
+                case CRYPTO -> COLOR_CRYPTO;
+                case COMMODITY -> COLOR_COMMODITY;
+            };
+        }
+
+        static String labelOf(MarketType market) {
+            return market == MarketType.COMMODITY ? "EMTİA" : market.name();
+        }
+
+        /**
+         * Dilimleri günceller; değerler öncekiyle aynıysa hiçbir şey yapılmaz.
+         */
+        public void updateData(List<Segment> segments) {
+            if (segments.equals(this.segments)) return;
+            this.segments = List.copyOf(segments);
+            double sum = 0;
+            for (Segment s : this.segments) {
+                if (s.value() > 0) sum += s.value();
+            }
+            this.total = sum;
+            cache = null;
             repaint();
         }
+
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
             int width = getWidth();
             int height = getHeight();
+            if (width <= 0 || height <= 0) return;
+
+            // HiDPI ekranlarda görüntü cihaz pikseli çözünürlüğünde tutulur
+            double scale = ((Graphics2D) g).getTransform().getScaleX();
+            if (cache == null || cacheWidth != width || cacheHeight != height || cacheScale != scale
+                    || cacheTheme != ThemeManager.getCurrentTheme() || cacheValueVisible != portfolioValueVisible) {
+                renderCache(width, height, scale);
+            }
+            g.drawImage(cache, 0, 0, width, height, null);
+        }
+
+        private void renderCache(int width, int height, double scale) {
+            int imageWidth = (int) Math.ceil(width * scale);
+            int imageHeight = (int) Math.ceil(height * scale);
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            cache = gc != null
+                    ? gc.createCompatibleImage(imageWidth, imageHeight, Transparency.TRANSLUCENT)
+                    : new java.awt.image.BufferedImage(imageWidth, imageHeight, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+            cacheWidth = width;
+            cacheHeight = height;
+            cacheScale = scale;
+            cacheTheme = ThemeManager.getCurrentTheme();
+            cacheValueVisible = portfolioValueVisible;
+
+            Graphics2D g2 = cache.createGraphics();
+            try {
+                g2.scale(scale, scale);
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                paintDonut(g2, width, height);
+            } finally {
+                g2.dispose();
+            }
+        }
+
+        private void paintDonut(Graphics2D g2, int width, int height) {
             // Grafiği sola kaydırıp sağa daha fazla alan veriyoruz
             int centerX = width / 3; // Merkezi sola kaydırdık
             int centerY = height / 2;
             int radius = Math.min(width / 2, height) / 2 - 10; // Biraz daha büyük
             int innerRadius = radius - 35; // Halka kalınlığı
 
-            double total = bistValue + usValue + cryptoValue + commodityValue;
             if (total == 0) {
                 // Veri yoksa boş halka göster
                 g2.setColor(getBORDER());
-                g2.setStroke(new BasicStroke(2f));
+                g2.setStroke(STROKE_SEGMENT);
                 g2.drawOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
                 
                 g2.setColor(getTEXT_MUTED());
@@ -2115,215 +2104,139 @@ public class MainPanel extends JPanel {
                 int textWidth = fm.stringWidth(noDataText);
                 int textHeight = fm.getHeight();
                 g2.drawString(noDataText, centerX - textWidth / 2, centerY + textHeight / 4);
-                g2.dispose();
                 return;
             }
 
-            double startAngle = -90; // 12'den başla
-            double bistAngle = (bistValue / total) * 360;
-            double usAngle = (usValue / total) * 360;
-            double cryptoAngle = (cryptoValue / total) * 360;
-            double commodityAngle = (commodityValue / total) * 360;
-
-            // BIST
-            if (bistValue > 0) {
-                g2.setColor(COLOR_BIST);
-                g2.fillArc(centerX - radius, centerY - radius, radius * 2, radius * 2,
-                        (int) startAngle, (int) Math.ceil(bistAngle));
-                g2.setColor(COLOR_BIST.darker());
-                g2.setStroke(new BasicStroke(2f));
-                g2.drawArc(centerX - radius, centerY - radius, radius * 2, radius * 2,
-                        (int) startAngle, (int) Math.ceil(bistAngle));
-                startAngle += bistAngle;
-            }
-
-            // US
-            if (usValue > 0) {
-                g2.setColor(COLOR_US);
-                g2.fillArc(centerX - radius, centerY - radius, radius * 2, radius * 2,
-                        (int) startAngle, (int) Math.ceil(usAngle));
-                g2.setColor(COLOR_US.darker());
-                g2.setStroke(new BasicStroke(2f));
-                g2.drawArc(centerX - radius, centerY - radius, radius * 2, radius * 2,
-                        (int) startAngle, (int) Math.ceil(usAngle));
-                startAngle += usAngle;
-            }
-
-            // CRYPTO
-            if (cryptoValue > 0) {
-                g2.setColor(COLOR_CRYPTO);
-                g2.fillArc(centerX - radius, centerY - radius, radius * 2, radius * 2,
-                        (int) startAngle, (int) Math.ceil(cryptoAngle));
-                g2.setColor(COLOR_CRYPTO.darker());
-                g2.setStroke(new BasicStroke(2f));
-                g2.drawArc(centerX - radius, centerY - radius, radius * 2, radius * 2,
-                        (int) startAngle, (int) Math.ceil(cryptoAngle));
-                startAngle += cryptoAngle;
-            }
-
-            // COMMODITY
-            if (commodityValue > 0) {
-                g2.setColor(COLOR_COMMODITY);
-                g2.fillArc(centerX - radius, centerY - radius, radius * 2, radius * 2,
-                        (int) startAngle, (int) Math.ceil(commodityAngle));
-                g2.setColor(COLOR_COMMODITY.darker());
-                g2.setStroke(new BasicStroke(2f));
-                g2.drawArc(centerX - radius, centerY - radius, radius * 2, radius * 2,
-                        (int) startAngle, (int) Math.ceil(commodityAngle));
+            // Dilimler 12'den başlayıp saat yönünde çizilir
+            double startAngle = 90;
+            g2.setStroke(STROKE_SEGMENT);
+            for (Segment s : segments) {
+                if (s.value() <= 0) continue;
+                double extent = -(s.value() / total) * 360;
+                java.awt.geom.Arc2D arc = new java.awt.geom.Arc2D.Double(centerX - radius, centerY - radius,
+                        radius * 2, radius * 2, startAngle, extent, java.awt.geom.Arc2D.PIE);
+                g2.setColor(s.color());
+                g2.fill(arc);
+                g2.setColor(s.color().darker());
+                g2.draw(arc);
+                startAngle += extent;
             }
 
             // İç boşluğu temizle (halka efekti)
             g2.setColor(getPANEL_BG());
             g2.fillOval(centerX - innerRadius, centerY - innerRadius, innerRadius * 2, innerRadius * 2);
             g2.setColor(getBORDER());
-            g2.setStroke(new BasicStroke(1f));
+            g2.setStroke(STROKE_THIN);
             g2.drawOval(centerX - innerRadius, centerY - innerRadius, innerRadius * 2, innerRadius * 2);
 
-            // Ortadaki yüzde bilgisi - gizleme durumuna göre
-            if (portfolioValueVisible) {
-                g2.setColor(getTEXT());
-                g2.setFont(new Font("Segoe UI", Font.BOLD, 16));
-                String totalText = PRICE_FMT.format(total);
-                FontMetrics fm = g2.getFontMetrics();
-                int textWidth = fm.stringWidth(totalText);
-                int textHeight = fm.getHeight();
-                g2.drawString(totalText, centerX - textWidth / 2, centerY + textHeight / 4);
-
-                g2.setColor(getTEXT_MUTED());
-                g2.setFont(FONT_REGULAR);
-                String labelText = "Toplam";
-                fm = g2.getFontMetrics();
-                textWidth = fm.stringWidth(labelText);
-                g2.drawString(labelText, centerX - textWidth / 2, centerY - textHeight / 2);
-            } else {
-                // Gizli durumda "••••••" göster
-                g2.setColor(getTEXT());
-                g2.setFont(new Font("Segoe UI", Font.BOLD, 16));
-                String hiddenText = "••••••";
-                FontMetrics fm = g2.getFontMetrics();
-                int textWidth = fm.stringWidth(hiddenText);
-                int textHeight = fm.getHeight();
-                g2.drawString(hiddenText, centerX - textWidth / 2, centerY + textHeight / 4);
-
-                g2.setColor(getTEXT_MUTED());
-                g2.setFont(FONT_REGULAR);
-                String labelText = "Toplam";
-                fm = g2.getFontMetrics();
-                textWidth = fm.stringWidth(labelText);
-                g2.drawString(labelText, centerX - textWidth / 2, centerY - textHeight / 2);
-            }
-
-            // Legend (gösterge) - Sağ tarafta daha görünür
-            drawLegend(g2, centerX + radius + 20, centerY - 40);
-            g2.dispose();
+            // Ortadaki toplam bilgisi - gizleme durumuna göre
+            g2.setColor(getTEXT());
+            g2.setFont(FONT_TOTAL);
+            String totalText = portfolioValueVisible ? PRICE_FMT.format(total) : "••••••";
+            FontMetrics fm = g2.getFontMetrics();
+            int textWidth = fm.stringWidth(totalText);
+            int textHeight = fm.getHeight();
+            g2.drawString(totalText, centerX - textWidth / 2, centerY + textHeight / 4);
+
+            g2.setColor(getTEXT_MUTED());
+            g2.setFont(FONT_REGULAR);
+            String labelText = "Toplam";
+            fm = g2.getFontMetrics();
+            textWidth = fm.stringWidth(labelText);
+            g2.drawString(labelText, centerX - textWidth / 2, centerY - textHeight / 2);
+
+            // Legend (gösterge) - Sağ tarafta, dilim sayısına göre dikeyde ortalı
+            int shown = 0;
+            for (Segment s : segments) {
+                if (s.value() > 0) shown++;
+            }
+            drawLegend(g2, centerX + radius + 20, centerY - shown * LEGEND_LINE_HEIGHT / 2);
         }
 
         private void drawLegend(Graphics2D g2, int x, int y) {
-            int boxSize = 14; // Biraz daha büyük kutu
-            int lineHeight = 20; // Daha fazla boşluk
-            Font legendFont = new Font("Segoe UI", Font.BOLD, 12); // Daha büyük ve kalın font
-
-            g2.setFont(legendFont);
+            g2.setFont(FONT_LEGEND);
+            g2.setStroke(STROKE_THIN);
             int currentY = y;
-
-            double total = bistValue + usValue + cryptoValue + commodityValue;
-            if (total == 0) return;
-
-            g2.setFont(legendFont);
-
-            // BIST
-            if (bistValue > 0) {
-                g2.setColor(COLOR_BIST);
-                g2.fillRect(x, currentY, boxSize, boxSize);
-                g2.setColor(COLOR_BIST.darker());
-                g2.setStroke(new BasicStroke(1f));
-                g2.drawRect(x, currentY, boxSize, boxSize);
-                g2.setColor(getTEXT());
-                double pct = (bistValue / total) * 100;
-                g2.drawString("BIST: " + String.format("%.1f%%", pct), x + boxSize + 8, currentY + boxSize - 2);
-                currentY += lineHeight;
-            }
-
-            // US
-            if (usValue > 0) {
-                g2.setColor(COLOR_US);
-                g2.fillRect(x, currentY, boxSize, boxSize);
-                g2.setColor(COLOR_US.darker());
-                g2.setStroke(new BasicStroke(1f));
-                g2.drawRect(x, currentY, boxSize, boxSize);
+            for (Segment s : segments) {
+                if (s.value() <= 0) continue;
+                g2.setColor(s.color());
+                g2.fillRect(x, currentY, LEGEND_BOX, LEGEND_BOX);
+                g2.setColor(s.color().darker());
+                g2.drawRect(x, currentY, LEGEND_BOX, LEGEND_BOX);
                 g2.setColor(getTEXT());
-                double pct = (usValue / total) * 100;
-                g2.drawString("US: " + String.format("%.1f%%", pct), x + boxSize + 8, currentY + boxSize - 2);
-                currentY += lineHeight;
-            }
-
-            // CRYPTO
-            if (cryptoValue > 0) {
-                g2.setColor(COLOR_CRYPTO);
-                g2.fillRect(x, currentY, boxSize, boxSize);
-                g2.setColor(COLOR_CRYPTO.darker());
-                g2.setStroke(new BasicStroke(1f));
-                g2.drawRect(x, currentY, boxSize, boxSize);
-                g2.setColor(getTEXT());
-                double pct = (cryptoValue / total) * 100;
-                g2.drawString("CRYPTO: " + String.format("%.1f%%", pct), x + boxSize + 8, currentY + boxSize - 2);
-                currentY += lineHeight;
-            }
-
-            // COMMODITY
-            if (commodityValue > 0) {
-                g2.setColor(COLOR_COMMODITY);
-                g2.fillRect(x, currentY, boxSize, boxSize);
-                g2.setColor(COLOR_COMMODITY.darker());
-                g2.setStroke(new BasicStroke(1f));
-                g2.drawRect(x, currentY, boxSize, boxSize);
-                g2.setColor(getTEXT());
-                double pct = (commodityValue / total) * 100;
-                g2.drawString("EMTİA: " + String.format("%.1f%%", pct), x + boxSize + 8, currentY + boxSize - 2);
+                double pct = (s.value() / total) * 100;
+                g2.drawString(s.label() + ": " + String.format("%.1f%%", pct), x + LEGEND_BOX + 8, currentY + LEGEND_BOX - 2);
+                currentY += LEGEND_LINE_HEIGHT;
             }
         }
     }
 
     /**
-     * Portföy değer değişim grafiğini günceller
+     * Portföy değer değişim grafiğini son yüklenen görüntüdeki verilerle günceller
      */
     private void updateLineChart() {
-        if (lineChartPanel == null) return;
+        if (lineChartPanel == null || lastSnapshot == null) return;
 
-        PortfolioValueDao portfolioValueDao = new PortfolioValueDao();
+        lineChartPanel.updateData(lastSnapshot.lineValues());
+    }
+
+    /**
+     * Line chart için portföy değerlerini okur (EDT dışında çağrılır)
+     */
+    private static List<PortfolioValueDao.PortfolioValue> loadLineChartValues(PortfolioValueDao portfolioValueDao, int userId) {
         // Son 30 günü al - günün başlangıcından itibaren (saat bilgisi olmadan)
         // Bugünün başlangıcından 30 gün öncesinin başlangıcına kadar
         java.time.LocalDate today = java.time.LocalDate.now();
         java.time.LocalDate thirtyDaysAgoDate = today.minusDays(30);
         java.time.LocalDateTime thirtyDaysAgo = thirtyDaysAgoDate.atStartOfDay();
         
-        // Son 30 gün içindeki tüm kayıtları al (limit yok)
-        List<PortfolioValueDao.PortfolioValue> values = portfolioValueDao.listByUser(user.getId(), thirtyDaysAgo, null);
+        // Son 30 günün günlük değerleri (gün başına tek kayıt)
+        List<PortfolioValueDao.PortfolioValue> values =
+                portfolioValueDao.listByUser(userId, thirtyDaysAgo, null, PortfolioValueDao.Resolution.DAILY);
         
-        // Eğer 30 günde yeterli veri yoksa, son 500 kaydı al (daha fazla veri için)
+        // Eğer 30 günde yeterli veri yoksa, tüm günlük geçmişi al
         if (values.size() < 2) {
-            values = portfolioValueDao.getLastKRecords(user.getId(), 500);
+            values = portfolioValueDao.listByUser(userId, null, null, PortfolioValueDao.Resolution.DAILY);
         }
-
-        lineChartPanel.updateData(values);
+        return values;
     }
 
     /**
-     * Portföy değer değişimini gösteren line chart paneli
+     * Portföy değer değişimini gösteren line chart paneli. Grafik ve XChartPanel bir kez
+     * oluşturulur; yenilemede sadece seri verisi değiştirilir. Noktalar ilkel dizilerde
+     * tutulur (x: epoch günü), yeni günler sona eklenir ve nokta sayısı çizim alanının
+     * piksel genişliğini aşarsa seri LTTB ile seyreltilir. Bugünün değeri değiştiğinde
+     * seyreltilmiş serinin sadece son noktası güncellenir.
      */
     private class PortfolioLineChartPanel extends JPanel {
-        private XChartPanel<XYChart> chartPanel;
-        private XYChart chart;
+        private static final String SERIES_NAME = "Portföy Değeri";
+        private static final java.time.format.DateTimeFormatter DATE_FMT =
+                java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy");
+        // Eksen etiketleri ve kenar boşlukları için piksel genişliğinden düşülen pay
+        private static final int AXIS_MARGIN = 90;
+        private static final int MIN_POINTS = 16;
+
+        private final XYChart chart;
+        private final XChartPanel<XYChart> chartPanel;
+        private final JLabel emptyLabel;
+
+        // Tüm geçmiş: x = epoch günü, y = portföy değeri
+        private double[] days = new double[64];
+        private double[] totals = new double[64];
+        private int count;
+
+        // Grafiğe verilen (gerekirse seyreltilmiş) seri
+        private double[] plotDays = new double[0];
+        private double[] plotValues = new double[0];
+        private int plotThreshold = -1;
+
+        private List<PortfolioValueDao.PortfolioValue> source;
+        private boolean showingChart;
 
         public PortfolioLineChartPanel() {
             setOpaque(false);
             setLayout(new BorderLayout());
-            
-            // Boş durum için başlangıç grafiği
-            createEmptyChart();
-        }
 
-        private void createEmptyChart() {
             chart = new XYChartBuilder()
                     .width(600)
                     .height(180)
@@ -2335,103 +2248,144 @@ public class MainPanel extends JPanel {
             // Stil ayarları
             applyChartTheme();
 
+            // X ekseni sayısaldır (epoch günü); etiketler sadece tam günlerde tarih olarak yazılır
+            chart.getStyler().setxAxisTickLabelsFormattingFunction(day ->
+                    day == Math.floor(day) ? DATE_FMT.format(java.time.LocalDate.ofEpochDay(day.longValue())) : "");
+            chart.getStyler().setXAxisLabelRotation(45);
+            // X ekseni etiketlerini seyrekleştir
+            chart.getStyler().setXAxisTickMarkSpacingHint(100);
+
+            // Y ekseni formatı: TL formatında, binlik ayırıcı, 2 ondalık
+            chart.getStyler().setYAxisDecimalPattern("#,##0.00");
+
+            // Tooltip ekle - XChart otomatik tooltip desteği var
+            chart.getStyler().setToolTipsEnabled(true);
+
+            org.knowm.xchart.XYSeries series = chart.addSeries(SERIES_NAME, new double[]{0}, new double[]{0});
+            series.setLineColor(new Color(66, 153, 225)); // Mavi çizgi
+            series.setLineWidth(2.5f);
+
             chartPanel = new XChartPanel<>(chart);
             chartPanel.setOpaque(false);
-            
-            removeAll();
-            add(chartPanel, BorderLayout.CENTER);
+
+            emptyLabel = new JLabel("Henüz yeterli veri yok");
+            emptyLabel.setHorizontalAlignment(SwingConstants.CENTER);
+            emptyLabel.setVerticalAlignment(SwingConstants.CENTER);
+            emptyLabel.setFont(FONT_REGULAR);
+
+            // Genişlik değişince seyreltme eşiği de değişir
+            addComponentListener(new java.awt.event.ComponentAdapter() {
+                @Override
+                public void componentResized(java.awt.event.ComponentEvent e) {
+                    if (count > 0 && threshold() != plotThreshold) {
+                        render(true);
+                    }
+                }
+            });
+
+            showEmptyState();
         }
 
+        /**
+         * Grafiği günlük değerlerle günceller. Aynı liste tekrar verilirse (tema değişimi)
+         * sadece yeniden çizilir; yeni liste her zaman baştan kurulur. Liste başka bir
+         * kullanıcıya ait olabilir (panel kullanıcı değişiminde yeniden kullanılır) ve günlük
+         * çözünürlükte en fazla birkaç yüz nokta olduğu için baştan kurmak ucuzdur.
+         * Gün içi değişiklikler appendValue ile artımlı uygulanır.
+         */
         public void updateData(List<PortfolioValueDao.PortfolioValue> values) {
             if (values == null || values.isEmpty()) {
+                source = values;
+                count = 0;
                 showEmptyState();
                 return;
             }
+            if (values == source && count > 0) {
+                showChart();
+                return;
+            }
+            source = values;
 
-            // Verileri günlük tek kayıt olacak şekilde grupla (her gün için son kayıt alınır)
-            java.util.Map<java.time.LocalDate, PortfolioValueDao.PortfolioValue> dailyData = new java.util.LinkedHashMap<>();
+            // Değerler günlük katmandan gelir: gün başına tek kayıt, tarihe göre artan sırada
+            count = 0;
             for (PortfolioValueDao.PortfolioValue pv : values) {
-                LocalDateTime ldt = pv.calculatedAt();
-                java.time.LocalDate date = ldt.toLocalDate();
-                // Eğer bu tarih için kayıt yoksa veya daha yeni bir kayıt varsa güncelle
-                if (!dailyData.containsKey(date) || 
-                    pv.calculatedAt().isAfter(dailyData.get(date).calculatedAt())) {
-                    dailyData.put(date, pv);
-                }
+                add(epochDay(pv), pv.totalValue());
             }
+            render(true);
+        }
 
-            // Verileri hazırla (tarihe göre sıralı)
-            List<Date> dates = new ArrayList<>();
-            List<Double> portfolioValues = new ArrayList<>();
-            
-            // Tarihleri sırala
-            List<java.time.LocalDate> sortedDates = new ArrayList<>(dailyData.keySet());
-            sortedDates.sort(java.util.Comparator.naturalOrder());
-            
-            for (java.time.LocalDate localDate : sortedDates) {
-                PortfolioValueDao.PortfolioValue pv = dailyData.get(localDate);
-                // Günün başlangıcına ayarla (saat bilgisi olmasın)
-                LocalDateTime dayStart = localDate.atStartOfDay();
-                Date date = Date.from(dayStart.atZone(ZoneId.systemDefault()).toInstant());
-                dates.add(date);
-                portfolioValues.add(pv.totalValue());
+        /**
+         * Bugünün portföy değerini grafiğe yansıtır: son nokta bugünse değeri değiştirilir,
+         * değilse yeni nokta eklenir. Seri zaten seyreltilmişse LTTB tekrar çalıştırılmaz
+         * (son nokta her zaman korunduğu için sadece o güncellenir).
+         */
+        public void appendValue(java.time.LocalDate day, double value) {
+            if (count == 0) return; // Boş durum bir sonraki tam yüklemede kurulur
+            double x = day.toEpochDay();
+            if (x < days[count - 1]) return;
+            if (x == days[count - 1]) {
+                totals[count - 1] = value;
+                render(false);
+            } else {
+                add(x, value);
+                render(true);
             }
+        }
 
-            // Grafiği yeniden oluştur (tema kullanmadan, manuel renk ayarları yapacağız)
-            chart = new XYChartBuilder()
-                    .width(600)
-                    .height(180)
-                    .title("")
-                    .xAxisTitle("Tarih")
-                    .yAxisTitle("Değer (₺)")
-                    .build();
-
-            // Stil ayarları
-            applyChartTheme();
+        private static double epochDay(PortfolioValueDao.PortfolioValue pv) {
+            // Günün başlangıcı (saat bilgisi olmadan)
+            return pv.calculatedAt().toLocalDate().toEpochDay();
+        }
 
-            // X ekseni tarih formatı - sadece tarih (saat yok)
-            chart.getStyler().setDatePattern("dd.MM.yyyy");
-            chart.getStyler().setXAxisLabelRotation(45);
-            // X ekseni etiketlerini seyrekleştir
-            chart.getStyler().setXAxisTickMarkSpacingHint(80);
-            // X ekseni etiket sayısını sınırla
-            if (dates.size() > 10) {
-                chart.getStyler().setXAxisTickMarkSpacingHint(100);
+        private void add(double day, double value) {
+            if (count == days.length) {
+                days = java.util.Arrays.copyOf(days, count * 2);
+                totals = java.util.Arrays.copyOf(totals, count * 2);
             }
+            days[count] = day;
+            totals[count] = value;
+            count++;
+        }
 
-            // Y ekseni formatı: TL formatında, binlik ayırıcı, 2 ondalık
-            chart.getStyler().setYAxisDecimalPattern("#,##0.00");
-            // Y eksenine padding ekle (min ve max değerlerin üstüne/altına boşluk)
-            if (!portfolioValues.isEmpty()) {
-                double minValue = portfolioValues.stream().mapToDouble(Double::doubleValue).min().orElse(0);
-                double maxValue = portfolioValues.stream().mapToDouble(Double::doubleValue).max().orElse(0);
-                double range = maxValue - minValue;
-                if (range > 0) {
-                    double padding = range * 0.1; // %10 padding
-                    chart.getStyler().setYAxisMin(minValue - padding);
-                    chart.getStyler().setYAxisMax(maxValue + padding);
-                }
+        /**
+         * Seriyi grafiğe verir. resample false ise sadece son noktanın değeri güncellenir.
+         */
+        private void render(boolean resample) {
+            int threshold = threshold();
+            if (resample || threshold != plotThreshold || plotDays.length == 0) {
+                double[] outDays = new double[Math.min(count, threshold)];
+                double[] outValues = new double[outDays.length];
+                Lttb.downsample(days, totals, count, threshold, outDays, outValues);
+                plotDays = outDays;
+                plotValues = outValues;
+                plotThreshold = threshold;
+            } else {
+                plotValues[plotValues.length - 1] = totals[count - 1];
             }
 
-            // Veri serisini ekle
-            org.knowm.xchart.XYSeries series = chart.addSeries("Portföy Değeri", dates, portfolioValues);
-            series.setLineColor(new Color(66, 153, 225)); // Mavi çizgi
-            series.setLineWidth(2.5f);
-
-            // Tooltip ekle - XChart otomatik tooltip desteği var
-            chart.getStyler().setToolTipsEnabled(true);
+            // Y eksenine padding ekle (min ve max değerlerin üstüne/altına boşluk)
+            double minValue = Double.MAX_VALUE;
+            double maxValue = -Double.MAX_VALUE;
+            for (double value : plotValues) {
+                minValue = Math.min(minValue, value);
+                maxValue = Math.max(maxValue, value);
+            }
+            double range = maxValue - minValue;
+            double padding = range > 0 ? range * 0.1 : Math.max(Math.abs(maxValue) * 0.1, 1); // %10 padding
+            chart.getStyler().setYAxisMin(minValue - padding);
+            chart.getStyler().setYAxisMax(maxValue + padding);
+
+            chart.updateXYSeries(SERIES_NAME, plotDays, plotValues, null);
+            showChart();
+            chartPanel.repaint();
+        }
 
-            // Chart panel'i güncelle
-            if (chartPanel != null) {
-                remove(chartPanel);
-            }
-            chartPanel = new XChartPanel<>(chart);
-            chartPanel.setOpaque(false);
-            
-            removeAll();
-            add(chartPanel, BorderLayout.CENTER);
-            revalidate();
-            repaint();
+        /**
+         * Çizim alanının piksel genişliği kadar nokta; panel henüz yerleşmediyse varsayılan genişlik.
+         */
+        private int threshold() {
+            int width = getWidth() > 0 ? getWidth() : chart.getWidth();
+            return Math.max(MIN_POINTS, width - AXIS_MARGIN);
         }
         
         /**
@@ -2469,17 +2423,22 @@ public class MainPanel extends JPanel {
             chart.getStyler().setXAxisTickMarkSpacingHint(50);
             chart.getStyler().setYAxisTickMarkSpacingHint(30);
         }
-        
 
-        private void showEmptyState() {
+        private void showChart() {
+            if (showingChart) return;
+            showingChart = true;
             removeAll();
-            
-            JLabel emptyLabel = new JLabel("Henüz yeterli veri yok");
-            emptyLabel.setHorizontalAlignment(SwingConstants.CENTER);
-            emptyLabel.setVerticalAlignment(SwingConstants.CENTER);
+            add(chartPanel, BorderLayout.CENTER);
+            revalidate();
+            repaint();
+        }
+
+        private void showEmptyState() {
+            // Tema değişmiş olabilir
             emptyLabel.setForeground(getTEXT_MUTED());
-            emptyLabel.setFont(FONT_REGULAR);
-            
+            if (!showingChart && emptyLabel.getParent() == this) return;
+            showingChart = false;
+            removeAll();
             add(emptyLabel, BorderLayout.CENTER);
             revalidate();
             repaint();
@@ -2487,28 +2446,39 @@ public class MainPanel extends JPanel {
     }
     
     /**
-     * Fiyatları günceller (hem manuel hem otomatik güncelleme için)
-     * @param isAutoUpdate true ise otomatik güncelleme, false ise manuel güncelleme
-     * @param btnRefresh Yenile butonu (manuel güncelleme için gerekli, otomatik güncellemede null olabilir)
+     * Zamanlayıcıdaki aboneliği portföydeki varlıklarla günceller.
      */
-    private void refreshPrices(boolean isAutoUpdate, JButton btnRefresh) {
-        // Portföydeki varlıkların asset ID'lerini topla
-        dao.PortfolioDao portfolioDao = new dao.PortfolioDao();
-        var portfolioRows = portfolioDao.getPortfolioSummary(user.getId());
-        java.util.Set<Integer> assetIds = portfolioRows.stream()
-                .map(row -> row.assetId)
-                .collect(java.util.stream.Collectors.toSet());
+    private void subscribeToPrices(PortfolioValuation v) {
+        if (priceSubscription == null) return;
+        java.util.Map<Integer, MarketType> assets = new java.util.HashMap<>(v.size());
+        for (int i = 0; i < v.size(); i++) {
+            assets.put(v.assetId(i), v.market(i));
+        }
+        priceSubscription.update(assets);
+    }
+
+    /**
+     * Portföydeki varlıkların fiyatlarını hemen günceller (manuel yenileme).
+     * Otomatik güncelleme MarketDataScheduler tarafından yapılır.
+     * @param btnRefresh Yenile butonu
+     */
+    private void refreshPrices(JButton btnRefresh) {
+        // Portföydeki varlıklar son yüklenen görüntüden alınır; tekrar sorgu yapılmaz
+        if (lastSnapshot == null) {
+            return;
+        }
+        java.util.Set<Integer> assetIds = new java.util.HashSet<>();
+        for (int id : lastSnapshot.valuation().assetIds()) {
+            assetIds.add(id);
+        }
         
         // Eğer portföy boşsa işlem yapma
         if (assetIds.isEmpty()) {
             return;
         }
         
-        // Manuel güncelleme için butonu devre dışı bırak
-        if (!isAutoUpdate && btnRefresh != null) {
-            btnRefresh.setEnabled(false);
-            btnRefresh.setToolTipText("Fiyatlar güncelleniyor...");
-        }
+        btnRefresh.setEnabled(false);
+        btnRefresh.setToolTipText("Fiyatlar güncelleniyor...");
         
         // Arka planda sadece portföydeki varlıkların fiyatlarını çek ve kaydet
         SwingWorker<int[], Void> worker = new SwingWorker<int[], Void>() {
@@ -2527,59 +2497,30 @@ public class MainPanel extends JPanel {
             
             @Override
             protected void done() {
-                // Manuel güncelleme için butonu tekrar etkinleştir
-                if (!isAutoUpdate && btnRefresh != null) {
-                    btnRefresh.setEnabled(true);
-                    btnRefresh.setToolTipText("Yenile");
-                }
+                btnRefresh.setEnabled(true);
+                btnRefresh.setToolTipText("Yenile");
                 
                 try {
                     int[] results = get();
                     int ok = results[0];
                     int fail = results[1];
                     
-                    // Tüm yenileme işlemlerini yap:
-                    // 1. Portföy tablosunu yeniden yükle (fiyatlar, kar/zarar)
-                    loadPortfolioFromDb();
-                    
-                    // 2. Toplam portföy değerini ve kar/zarar değerini yenile
-                    refreshPortfolioValues();
-                    
-                    // 3. Portföy değeri değişim grafiğini yenile
-                    updateLineChart();
-                    
-                    // Bildirim göster - sadece manuel güncellemede
-                    if (!isAutoUpdate) {
-                        // Manuel güncelleme: bildirim göster
-                        if (fail == 0) {
-                            showInfoDialog("Fiyatlar başarıyla güncellendi. (" + ok + " varlık)");
-                        } else {
-                            showInfoDialog("Fiyatlar güncellendi. Başarılı: " + ok + ", Başarısız: " + fail);
-                        }
+                    // Kaydedilen fiyatlar PriceEventBus üzerinden applyPriceUpdates'e gelir; tablo,
+                    // toplamlar, grafikler ve portföy değeri kaydı orada güncellenir. Portföy
+                    // ayrıca yeniden yüklenmez (portfolio_values'a ikinci kayıt yazılmasın).
+
+                    if (fail == 0) {
+                        showInfoDialog("Fiyatlar başarıyla güncellendi. (" + ok + " varlık)");
+                    } else {
+                        showInfoDialog("Fiyatlar güncellendi. Başarılı: " + ok + ", Başarısız: " + fail);
                     }
-                    // Otomatik güncellemede bildirim gösterilmez (sessiz güncelleme)
                 } catch (Exception ex) {
                     ex.printStackTrace();
                     String errorMsg = error != null ? error.getMessage() : ex.getMessage();
-                    // Hata durumunda sadece manuel güncellemede bildirim göster
-                    if (!isAutoUpdate) {
-                        showErrorDialog("Fiyat güncelleme hatası: " + errorMsg);
-                    }
+                    showErrorDialog("Fiyat güncelleme hatası: " + errorMsg);
                 }
             }
         };
         worker.execute();
     }
-    
-    /**
-     * Otomatik fiyat güncelleme timer'ını başlatır (1 dakikada bir)
-     */
-    private void startAutoRefreshTimer() {
-        // 1 dakika = 60000 milisaniye
-        autoRefreshTimer = new javax.swing.Timer(60000, e -> {
-            refreshPrices(true, null); // Otomatik güncelleme
-        });
-        autoRefreshTimer.setRepeats(true); // Sürekli tekrarla
-        autoRefreshTimer.start(); // Timer'ı başlat
-    }
 }
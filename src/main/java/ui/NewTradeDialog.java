@@ -1,12 +1,12 @@
 package ui;
 
 import com.formdev.flatlaf.FlatClientProperties;
-import dao.AssetDao;
 import dao.TradeDao;
 import model.Asset;
 import model.Trade;
 import model.TradeType;
 import model.User;
+import service.AssetCatalog;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -18,7 +18,6 @@ import javax.swing.text.DocumentFilter;
 import java.awt.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.List;
 import java.util.function.Consumer;
 
 public class NewTradeDialog extends JDialog {
@@ -135,8 +134,8 @@ public class NewTradeDialog extends JDialog {
         innerContent.setBorder(new EmptyBorder(12, 12, 12, 12));
         innerContent.setBackground(BG);
 
-        AssetDao assetDao = new AssetDao();
-        List<Asset> assets = assetDao.findAll();
+        // Varlıklar paylaşılan katalogdan aranır; katalog ilk kullanımda bir kez yüklenir
+        AssetCatalog catalog = AssetCatalog.getInstance();
 
         // --- Form bileşenleri ---
         JComboBox<model.MarketType> cbMarketType = new JComboBox<>(model.MarketType.values());
@@ -157,11 +156,18 @@ public class NewTradeDialog extends JDialog {
         // Varlık ismine sadece büyük harf ve rakam girişi
         ((AbstractDocument) tfAssetName.getDocument()).setDocumentFilter(new UpperAlnumFilter());
 
-        // Market değiştikçe varlıkları filtrelemek istersen burada filtreleyebilirsin
-        cbMarketType.addActionListener(e -> {
-            // Şimdilik yalnızca seçili market bilgisini güncel tutuyoruz.
-            // Kayıt sırasında bu bilgi ile varlık ismini eşleyeceğiz.
-        });
+        // Yazarken öneri listesi; seçilen varlığın piyasası otomatik seçilir
+        AssetTypeahead typeahead = new AssetTypeahead(tfAssetName,
+                () -> (model.MarketType) cbMarketType.getSelectedItem(),
+                asset -> {
+                    if (asset.getMarket() != null) {
+                        cbMarketType.setSelectedItem(asset.getMarket());
+                    }
+                });
+
+        // Market değiştikçe öneriler seçili piyasaya göre yeniden sıralanır.
+        // Kayıt sırasında bu bilgi ile varlık ismini eşleyeceğiz.
+        cbMarketType.addActionListener(e -> typeahead.refresh());
         // ilk açılışta tetikle
         if (cbMarketType.getItemCount() > 0) {
             cbMarketType.setSelectedIndex(0);
@@ -313,51 +319,14 @@ public class NewTradeDialog extends JDialog {
                     return;
                 }
 
-                String search = assetNameOrSymbol.trim().toUpperCase();
-
-                final Asset[] selectedAsset = { null };
-
-                // 1) Önce seçili market ile tam eşleşme ara
-                for (Asset candidate : assets) {
-                    String sym = candidate.getSymbol() != null ? candidate.getSymbol().trim().toUpperCase() : null;
-                    String yahoo = candidate.getYahooSymbol() != null ? candidate.getYahooSymbol().trim().toUpperCase() : null;
-                    String name = candidate.getName() != null ? candidate.getName().trim().toUpperCase() : null;
-
-                    boolean symbolMatch = sym != null && sym.equals(search);
-                    boolean yahooMatch = yahoo != null && yahoo.equals(search);
-                    boolean nameMatch = name != null && name.equals(search);
-
-                    if ((symbolMatch || yahooMatch || nameMatch) &&
-                            candidate.getMarket() == mt) {
-                        selectedAsset[0] = candidate;
-                        break;
-                    }
-                }
-
-                // 2) Hâlâ bulunamadıysa market filtresi olmadan dene (kullanıcı yanlış market seçmiş olabilir)
-                if (selectedAsset[0] == null) {
-                    for (Asset candidate : assets) {
-                        String sym = candidate.getSymbol() != null ? candidate.getSymbol().trim().toUpperCase() : null;
-                        String yahoo = candidate.getYahooSymbol() != null ? candidate.getYahooSymbol().trim().toUpperCase() : null;
-                        String name = candidate.getName() != null ? candidate.getName().trim().toUpperCase() : null;
-
-                        boolean symbolMatch = sym != null && sym.equals(search);
-                        boolean yahooMatch = yahoo != null && yahoo.equals(search);
-                        boolean nameMatch = name != null && name.equals(search);
-
-                        if (symbolMatch || yahooMatch || nameMatch) {
-                            selectedAsset[0] = candidate;
-                            break;
-                        }
-                    }
-                }
-                if (selectedAsset[0] == null) {
+                // Önce seçili market ile tam eşleşme, yoksa market filtresi olmadan
+                // (kullanıcı yanlış market seçmiş olabilir)
+                Asset a = catalog.find(assetNameOrSymbol, mt);
+                if (a == null) {
                     showErrorDialog("Bu isim/simgele eşleşen varlık bulunamadı.");
                     return;
                 }
 
-                Asset a = selectedAsset[0];
-
                 TradeType tradeType = (TradeType) cbType.getSelectedItem();
 
                 // Satış işlemlerinde portföy kontrolü yap
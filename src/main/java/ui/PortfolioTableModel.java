@@ -0,0 +1,176 @@
+package ui;
+
+import service.PortfolioValuation;
+
+import javax.swing.table.AbstractTableModel;
+import java.text.DecimalFormat;
+
+/**
+ * Portföy tablosunun modeli. Sayısal değerler PortfolioValuation'ın dizilerinden okunur;
+ * hücrelerde gösterilen metinler sadece değerler değiştiğinde biçimlendirilip satır başına
+ * saklanır. Böylece kaydırma ve fareyle gezinme sırasında getValueAt ve renderer'lar
+ * hiçbir nesne oluşturmaz.
+ */
+class PortfolioTableModel extends AbstractTableModel {
+
+    static final int COL_ASSET = 0;
+    static final int COL_MARKET = 1;
+    static final int COL_QTY = 2;
+    static final int COL_AVG_COST = 3;
+    static final int COL_PRICE = 4;
+    static final int COL_PL = 5;
+    static final int COL_DELETE = 6;
+
+    private static final String[] COLUMNS = {"Varlık", "Piyasa Türü ", "Adet/Tutar", "Ort. Maliyet", "Güncel Fiyat", "Kar/Zarar", ""};
+    private static final String DELETE_LABEL = "Sil";
+    private static final String[] EMPTY = new String[0];
+
+    private static final DecimalFormat PRICE_FMT = new DecimalFormat("#,##0.00");
+    private static final DecimalFormat PCT_FMT = new DecimalFormat("#,##0.00'%'");
+    // Adet için format: gereksiz sıfırları göstermez (örn: 0.0005, 3.5, 10)
+    private static final DecimalFormat QTY_FMT = new DecimalFormat("#,##0.########");
+
+    private PortfolioValuation valuation;
+    private int rowCount;
+
+    // Satır başına hazır metinler
+    private String[] qtyText = EMPTY;
+    private String[] amountText = EMPTY;
+    private String[] avgCostText = EMPTY;
+    private String[] priceText = EMPTY;
+    private String[] plAmountText = EMPTY;
+    private String[] plPctText = EMPTY;
+
+    private boolean showQuantity = true;
+    private boolean showPlAsPercentage = false;
+
+    /**
+     * Tabloyu yeni değerlemeyle baştan doldurur.
+     */
+    void setValuation(PortfolioValuation v) {
+        valuation = v;
+        rowCount = v.size();
+        qtyText = new String[rowCount];
+        amountText = new String[rowCount];
+        avgCostText = new String[rowCount];
+        priceText = new String[rowCount];
+        plAmountText = new String[rowCount];
+        plPctText = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            qtyText[i] = QTY_FMT.format(v.quantity(i));
+            avgCostText[i] = PRICE_FMT.format(v.avgCost(i)) + v.currencySymbol(i);
+            formatPriceDependent(i);
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Sadece fiyatı değişen satırları günceller. v, mevcut değerlemeden withPrices ile
+     * türetilmiş olmalıdır (satır sırası aynı).
+     */
+    void updatePrices(PortfolioValuation v, int[] rows) {
+        valuation = v;
+        for (int i : rows) {
+            formatPriceDependent(i);
+            if (!showQuantity) fireTableCellUpdated(i, COL_QTY);
+            fireTableCellUpdated(i, COL_PRICE);
+            fireTableCellUpdated(i, COL_PL);
+        }
+    }
+
+    /**
+     * Adet/Tutar sütununda adet (true) veya TL tutar (false) gösterilir.
+     */
+    void setShowQuantity(boolean showQuantity) {
+        if (this.showQuantity == showQuantity) return;
+        this.showQuantity = showQuantity;
+        fireColumnChanged(COL_QTY);
+    }
+
+    /**
+     * Kar/Zarar sütununda yüzde (true) veya TL tutar (false) gösterilir.
+     */
+    void setShowPlAsPercentage(boolean showPlAsPercentage) {
+        if (this.showPlAsPercentage == showPlAsPercentage) return;
+        this.showPlAsPercentage = showPlAsPercentage;
+        fireColumnChanged(COL_PL);
+    }
+
+    int assetId(int row) {
+        return valuation.assetId(row);
+    }
+
+    String name(int row) {
+        return valuation.name(row);
+    }
+
+    /**
+     * Kar/zarar sıfır veya pozitif mi (renk için)
+     */
+    boolean plPositive(int row) {
+        return valuation.plTl(row) >= 0;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        // Sadece Sil sütunu tıklanabilir
+        return column == COL_DELETE;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return switch (column) {
+            case COL_ASSET -> valuation.symbol(row);
+            case COL_MARKET -> valuation.marketCode(row);
+            case COL_QTY -> showQuantity ? qtyText[row] : amountText[row];
+            case COL_AVG_COST -> avgCostText[row];
+            case COL_PRICE -> priceText[row];
+            case COL_PL -> showPlAsPercentage ? plPctText[row] : plAmountText[row];
+            case COL_DELETE -> DELETE_LABEL;
+            default -> null;
+        };
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        // Sil editörünün döndürdüğü değer yoksayılır; model sadece değerlemeyle değişir
+    }
+
+    private void formatPriceDependent(int i) {
+        PortfolioValuation v = valuation;
+        double plTl = v.plTl(i);
+        double costTl = v.costTl(i);
+        double percentage = costTl != 0 ? (plTl / costTl) * 100.0 : 0.0;
+
+        amountText[i] = "₺" + PRICE_FMT.format(v.valueTl(i));
+        priceText[i] = PRICE_FMT.format(v.price(i)) + v.currencySymbol(i);
+        plAmountText[i] = (plTl >= 0 ? "+₺" : "-₺") + PRICE_FMT.format(Math.abs(plTl));
+        plPctText[i] = (percentage >= 0 ? "+" : "") + PCT_FMT.format(percentage);
+    }
+
+    private void fireColumnChanged(int column) {
+        if (rowCount > 0) {
+            fireTableChanged(new javax.swing.event.TableModelEvent(this, 0, rowCount - 1, column));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package util;
+
+import dao.OhlcDao;
+import dao.OhlcDao.CandleSeries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fiyat çekimi sırasında yakalanan dakikalık mumları biriktirip toplu olarak ohlc_1m
+ * tablosuna yazar. Her varlık için en son kuyruğa alınan mum zamanı tutulur; daha önce
+ * görülmüş mumlar veritabanına tekrar gönderilmez. Yazılamayıp atılan mumlar için bu
+ * zaman en son yazılan muma geri çekilir, böylece sonraki çekimde tekrar kuyruğa alınırlar.
+ */
+public class CandleRecorder {
+
+    // Yazılamayan mumlar en fazla bu kadar bekletilir (-Dprice.candles.maxPending)
+    private static final int MAX_PENDING = Integer.getInteger("price.candles.maxPending", 200_000);
+
+    private static final CandleRecorder INSTANCE = new CandleRecorder();
+
+    private final OhlcDao ohlcDao = new OhlcDao();
+
+    // asset_id -> kaydı istenmiş en son mumun zamanı (epoch saniyesi)
+    private final Map<Integer, Long> lastRecorded = new HashMap<>();
+    // asset_id -> veritabanına yazılmış en son mumun zamanı (epoch saniyesi)
+    private final Map<Integer, Long> lastWritten = new HashMap<>();
+    private List<CandleSeries> pending = new ArrayList<>();
+    private int pendingCandles;
+
+    public static CandleRecorder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Mumları yazılmak üzere kuyruğa alır; son kaydedilenden eski veya ona eşit mumlar atılır.
+     */
+    public synchronized void record(CandleSeries series) {
+        // ohlc_1m.asset_id assets tablosuna bağlıdır; kaydı olmayan varlıkların mumları yazılamaz
+        if (series.assetId() <= 0) return;
+        long last = lastRecorded.getOrDefault(series.assetId(), Long.MIN_VALUE);
+        long[] ts = series.epochSeconds();
+
+        // Zamanlar artan sıradadır; ilk yeni mumu bul
+        int from = 0;
+        while (from < ts.length && ts[from] <= last) {
+            from++;
+        }
+        if (from == ts.length) return;
+
+        CandleSeries fresh = from == 0 ? series : new CandleSeries(
+                series.assetId(),
+                Arrays.copyOfRange(ts, from, ts.length),
+                Arrays.copyOfRange(series.open(), from, ts.length),
+                Arrays.copyOfRange(series.high(), from, ts.length),
+                Arrays.copyOfRange(series.low(), from, ts.length),
+                Arrays.copyOfRange(series.close(), from, ts.length),
+                Arrays.copyOfRange(series.volume(), from, ts.length)
+        );
+
+        lastRecorded.put(series.assetId(), ts[ts.length - 1]);
+        pending.add(fresh);
+        pendingCandles += fresh.size();
+    }
+
+    /**
+     * Bekleyen mum sayısı.
+     */
+    public synchronized int pendingCount() {
+        return pendingCandles;
+    }
+
+    /**
+     * Bekleyen mumları tek transaction içinde yazar. Yazım başarısız olursa mumlar
+     * bir sonraki denemeye kadar (MAX_PENDING sınırına kadar) bekletilir.
+     * @return Başarılıysa veya yazılacak mum yoksa true
+     */
+    public boolean flush() {
+        List<CandleSeries> batch;
+        int batchCandles;
+        synchronized (this) {
+            if (pending.isEmpty()) return true;
+            batch = pending;
+            batchCandles = pendingCandles;
+            pending = new ArrayList<>();
+            pendingCandles = 0;
+        }
+
+        if (ohlcDao.insertBatch(batch)) {
+            synchronized (this) {
+                for (CandleSeries series : batch) {
+                    lastWritten.merge(series.assetId(), series.epochSeconds()[series.size() - 1], Math::max);
+                }
+            }
+            return true;
+        }
+
+        synchronized (this) {
+            if (pendingCandles + batchCandles <= MAX_PENDING) {
+                batch.addAll(pending);
+                pending = batch;
+                pendingCandles += batchCandles;
+            } else {
+                // Atılan mumlar sonraki çekimde yeniden kuyruğa alınabilsin; aynı varlığın hâlâ
+                // bekleyen mumları tekrar gelebilir, ON CONFLICT DO NOTHING ile yoksayılır
+                for (CandleSeries series : batch) {
+                    Long written = lastWritten.get(series.assetId());
+                    if (written != null) {
+                        lastRecorded.put(series.assetId(), written);
+                    } else {
+                        lastRecorded.remove(series.assetId());
+                    }
+                }
+                System.err.println("Mumlar yazılamadı, " + batchCandles + " mum atıldı");
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,95 @@
+package util;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Devre kesici. Art arda failureThreshold hata sonrası devre açılır ve openMillis boyunca
+ * istekler hiç denenmeden reddedilir. Süre dolunca tek bir deneme isteğine izin verilir
+ * (yarı açık); deneme başarılıysa devre kapanır, başarısızsa yeniden açılır.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    // Durum değişikliklerinde (eski, yeni) ile çağrılır; kilit dışında çağrılır
+    private final BiConsumer<State, State> onTransition;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openMillis, BiConsumer<State, State> onTransition) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openMillis * 1_000_000L;
+        this.onTransition = onTransition;
+    }
+
+    /**
+     * İsteğe izin verilip verilmediğini döner. İzin verilen her istek sonunda
+     * onSuccess, onFailure veya (istek sağlayıcıya hiç ulaşmadıysa) onAbort çağrılmalıdır.
+     */
+    public boolean allowRequest() {
+        State from;
+        synchronized (this) {
+            if (state == State.CLOSED) return true;
+            if (state == State.HALF_OPEN) {
+                if (trialInFlight) return false;
+                trialInFlight = true;
+                return true;
+            }
+            if (System.nanoTime() - openedAt < openNanos) return false;
+            from = state;
+            state = State.HALF_OPEN;
+            trialInFlight = true;
+        }
+        fire(from, State.HALF_OPEN);
+        return true;
+    }
+
+    public void onSuccess() {
+        State from;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            trialInFlight = false;
+            if (state == State.CLOSED) return;
+            from = state;
+            state = State.CLOSED;
+        }
+        fire(from, State.CLOSED);
+    }
+
+    public void onFailure() {
+        State from;
+        synchronized (this) {
+            trialInFlight = false;
+            consecutiveFailures++;
+            if (state == State.OPEN) return;
+            if (state == State.CLOSED && consecutiveFailures < failureThreshold) return;
+            from = state;
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+        fire(from, State.OPEN);
+    }
+
+    /**
+     * İzin verilen istek sağlayıcıya ulaşmadan bırakıldığında (örn. bekleme kesildi) çağrılır.
+     * Sonuç bilinmediği için sayaçlar ve durum değişmez; yarı açıkta deneme hakkı geri verilir.
+     */
+    public synchronized void onAbort() {
+        trialInFlight = false;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private void fire(State from, State to) {
+        if (onTransition != null) {
+            onTransition.accept(from, to);
+        }
+    }
+}
@@ -0,0 +1,542 @@
+package util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sınırlı boyutlu, basit bir JDBC bağlantı havuzu.
+ * Ödünç verilen bağlantılar bir proxy ile sarılır; close() çağrısı fiziksel bağlantıyı
+ * kapatmak yerine onu havuza geri bırakır. Böylece DAO'lardaki try-with-resources
+ * kullanımı hiç değişmeden çalışır. Bağlantıdan alınan Statement ve DatabaseMetaData
+ * nesneleri de sarılır; getConnection() fiziksel bağlantıyı değil proxy'yi döner.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Havuz ayarları.
+     * @param minIdle Arka planda hazır tutulacak en az boşta bağlantı sayısı
+     * @param maxSize Aynı anda açık olabilecek en fazla fiziksel bağlantı sayısı
+     * @param idleTimeoutMillis Bu süreden uzun boşta kalan bağlantılar (minIdle üstündeyse) kapatılır
+     * @param borrowTimeoutMillis Boş bağlantı beklerken en fazla bekleme süresi
+     * @param validationIntervalMillis Bu süreden uzun boşta kalmış bağlantılar ödünç verilmeden önce doğrulanır
+     */
+    public record Config(
+            String url,
+            Properties connectionProperties,
+            int minIdle,
+            int maxSize,
+            long idleTimeoutMillis,
+            long borrowTimeoutMillis,
+            long validationIntervalMillis
+    ) {}
+
+    /**
+     * Havuzun anlık istatistikleri. Bekleme süreleri milisaniye cinsindendir
+     * ve son {@value #WAIT_SAMPLES} ödünç alma işlemine göre hesaplanır.
+     */
+    public record Stats(
+            int active,
+            int idle,
+            int waiting,
+            long totalBorrowed,
+            long totalCreated,
+            long totalDestroyed,
+            long borrowTimeouts,
+            double waitP50Millis,
+            double waitP95Millis,
+            double waitP99Millis,
+            double waitMaxMillis
+    ) {}
+
+    private static final int WAIT_SAMPLES = 1024;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    // Ödünç verilen bağlantıya geri dönüş yolu olan (getConnection) ve bu yüzden sarılan dönüş tipleri
+    private static final Set<Class<?>> WRAPPED_TYPES = Set.of(
+            Statement.class, PreparedStatement.class, CallableStatement.class, DatabaseMetaData.class);
+
+    private final Config config;
+    private final Semaphore permits;
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService maintenance;
+
+    private final AtomicInteger active = new AtomicInteger();
+    // Fiziksel bağlantı sayısı: açık olanlar ve açılmak üzere yer ayrılmış olanlar
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong totalBorrowed = new AtomicLong();
+    private final AtomicLong totalCreated = new AtomicLong();
+    private final AtomicLong totalDestroyed = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+
+    // Bekleme sürelerini tutan halka tampon (nanosaniye)
+    private final long[] waitSamples = new long[WAIT_SAMPLES];
+    private int waitSampleCount = 0;
+    private int waitSampleNext = 0;
+
+    private volatile boolean closed = false;
+
+    public ConnectionPool(Config config) {
+        if (config.maxSize() <= 0) {
+            throw new IllegalArgumentException("maxSize 0'dan büyük olmalıdır");
+        }
+        this.config = config;
+        this.permits = new Semaphore(config.maxSize(), true);
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(config.idleTimeoutMillis() / 2, 30_000));
+        maintenance.scheduleWithFixedDelay(this::maintain, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Havuzdan bir bağlantı ödünç alır. Dönen bağlantı kapatıldığında havuza geri döner.
+     * @throws SQLTimeoutException borrowTimeout süresi içinde bağlantı alınamazsa
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Bağlantı havuzu kapatıldı");
+        }
+
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(config.borrowTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Bağlantı beklenirken kesildi", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        recordWait(System.nanoTime() - start);
+
+        if (!acquired) {
+            borrowTimeouts.incrementAndGet();
+            throw new SQLTimeoutException("Bağlantı havuzundan " + config.borrowTimeoutMillis()
+                    + " ms içinde bağlantı alınamadı (max=" + config.maxSize() + ")");
+        }
+
+        try {
+            PooledConnection pc = takeValidIdle();
+            if (pc == null) {
+                pc = create();
+            }
+            active.incrementAndGet();
+            totalBorrowed.incrementAndGet();
+            return pc.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Havuzun anlık istatistiklerini döner.
+     */
+    public Stats getStats() {
+        long[] samples;
+        synchronized (waitSamples) {
+            samples = Arrays.copyOf(waitSamples, waitSampleCount);
+        }
+        Arrays.sort(samples);
+
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        return new Stats(
+                active.get(),
+                idleCount,
+                waiting.get(),
+                totalBorrowed.get(),
+                totalCreated.get(),
+                totalDestroyed.get(),
+                borrowTimeouts.get(),
+                percentileMillis(samples, 0.50),
+                percentileMillis(samples, 0.95),
+                percentileMillis(samples, 0.99),
+                samples.length == 0 ? 0 : samples[samples.length - 1] / 1_000_000.0
+        );
+    }
+
+    /**
+     * Boştaki tüm bağlantıları kapatır ve yeni ödünç almaları engeller.
+     * Kullanımdaki bağlantılar geri bırakıldıklarında kapatılır.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        maintenance.shutdownNow();
+        synchronized (idle) {
+            while (!idle.isEmpty()) {
+                destroy(idle.pollFirst());
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------
+
+    private PooledConnection takeValidIdle() {
+        while (true) {
+            PooledConnection pc;
+            synchronized (idle) {
+                // LIFO: en son kullanılan (en sıcak) bağlantı önce verilir
+                pc = idle.pollFirst();
+            }
+            if (pc == null) {
+                return null;
+            }
+            if (isUsable(pc)) {
+                return pc;
+            }
+            destroy(pc);
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            if (pc.physical.isClosed()) {
+                return false;
+            }
+            long idleFor = System.currentTimeMillis() - pc.lastUsedAt;
+            if (idleFor < config.validationIntervalMillis()) {
+                return true;
+            }
+            return pc.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Yeni fiziksel bağlantı açar. Bağlantı açılmadan önce sayaçta yer ayrılır; maxSize
+     * doluysa bağlantı açılmaz. İzin tutan bir ödünç alan boş bağlantı bulamadıysa yer
+     * her zaman vardır: diğer izin sahipleri en fazla maxSize - 1 bağlantı tutar.
+     */
+    private PooledConnection create() throws SQLException {
+        int n;
+        do {
+            n = open.get();
+            if (n >= config.maxSize()) {
+                throw new SQLException("Bağlantı havuzu dolu (max=" + config.maxSize() + ")");
+            }
+        } while (!open.compareAndSet(n, n + 1));
+
+        try {
+            Connection physical = DriverManager.getConnection(config.url(), config.connectionProperties());
+            try {
+                PooledConnection pc = new PooledConnection(physical, physical.getTransactionIsolation());
+                totalCreated.incrementAndGet();
+                return pc;
+            } catch (SQLException | RuntimeException e) {
+                physical.close();
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            open.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void destroy(PooledConnection pc) {
+        open.decrementAndGet();
+        totalDestroyed.incrementAndGet();
+        try {
+            pc.physical.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private void release(PooledConnection pc) {
+        active.decrementAndGet();
+        try {
+            boolean reusable = !closed && !pc.physical.isClosed();
+            if (reusable && !pc.physical.getAutoCommit()) {
+                // Yarım kalmış transaction'ı bir sonraki kullanıcıya taşımayalım
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            // Ödünç alanın değiştirdiği oturum ayarları varsayılana döner
+            if (reusable && pc.readOnlyChanged) {
+                pc.physical.setReadOnly(false);
+                pc.readOnlyChanged = false;
+            }
+            if (reusable && pc.isolationChanged) {
+                pc.physical.setTransactionIsolation(pc.defaultIsolation);
+                pc.isolationChanged = false;
+            }
+            if (reusable) {
+                pc.lastUsedAt = System.currentTimeMillis();
+                synchronized (idle) {
+                    idle.offerFirst(pc);
+                }
+            } else {
+                destroy(pc);
+            }
+        } catch (SQLException e) {
+            destroy(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Arka plan bakımı: uzun süre boşta kalan bağlantıları kapatır,
+     * gerekirse minIdle sayısına kadar yeni bağlantı açar. Bağlantı sayısı create içinde
+     * sınırlanır; bakım yeni bağlantı açarken ödünç alanlar gibi bir izin de tutar, böylece
+     * açılmakta olan bağlantı izin bekleyen bir ödünç alanın yerini kapatamaz. İzin hemen
+     * alınamıyorsa havuz zaten dolu kullanımdadır ve ısıtma bir sonraki tura kalır.
+     */
+    private void maintain() {
+        if (closed) return;
+
+        long now = System.currentTimeMillis();
+        synchronized (idle) {
+            Iterator<PooledConnection> it = idle.descendingIterator(); // en eskiden başla
+            while (it.hasNext() && idle.size() > config.minIdle()) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastUsedAt >= config.idleTimeoutMillis()) {
+                    it.remove();
+                    destroy(pc);
+                }
+            }
+        }
+
+        while (!closed) {
+            synchronized (idle) {
+                if (idle.size() >= config.minIdle()) {
+                    return;
+                }
+            }
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            try {
+                if (open.get() >= config.maxSize()) {
+                    return;
+                }
+                // Yer kalmadıysa create hata verir ve tur biter
+                PooledConnection pc = create();
+                pc.lastUsedAt = System.currentTimeMillis();
+                synchronized (idle) {
+                    // Açılırken havuz kapatıldıysa bağlantı boşta bırakılmaz
+                    if (closed) {
+                        destroy(pc);
+                        return;
+                    }
+                    idle.offerLast(pc);
+                }
+            } catch (SQLException e) {
+                // Veritabanına ulaşılamıyorsa bir sonraki turda tekrar denenir
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        synchronized (waitSamples) {
+            waitSamples[waitSampleNext] = nanos;
+            waitSampleNext = (waitSampleNext + 1) % WAIT_SAMPLES;
+            if (waitSampleCount < WAIT_SAMPLES) {
+                waitSampleCount++;
+            }
+        }
+    }
+
+    private static double percentileMillis(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        idx = Math.max(0, Math.min(sorted.length - 1, idx));
+        return sorted[idx] / 1_000_000.0;
+    }
+
+    /**
+     * Fiziksel bağlantıyı ve son kullanım zamanını tutan havuz kaydı. Ödünç alanın salt okunur
+     * veya izolasyon ayarını değiştirip değiştirmediği de tutulur; geri bırakırken sadece
+     * değişen ayarlar sıfırlanır (her seferinde sunucuya sormadan).
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final int defaultIsolation;
+        private volatile long lastUsedAt;
+        private volatile boolean readOnlyChanged;
+        private volatile boolean isolationChanged;
+
+        private PooledConnection(Connection physical, int defaultIsolation) {
+            this.physical = physical;
+            this.defaultIsolation = defaultIsolation;
+            this.lastUsedAt = System.currentTimeMillis();
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * unwrap/isWrapperFor: proxy yalnızca kendi arayüzleri olarak açılır; altındaki sürücü
+     * nesnesi (ve onun üzerinden fiziksel bağlantı) dışarı verilmez.
+     */
+    private static Object unwrapSelf(Object proxy, Method method, Object[] args) throws SQLException {
+        Class<?> iface = (Class<?>) args[0];
+        boolean self = iface.isInstance(proxy);
+        if (method.getName().equals("isWrapperFor")) {
+            return self;
+        }
+        if (self) {
+            return proxy;
+        }
+        throw new SQLException("Havuz bağlantısı " + iface.getName() + " olarak açılamaz");
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Ödünç verilen bağlantı için proxy. close() ile bağlantı havuza döner;
+     * sonrasında yapılan çağrılar hata verir (fiziksel bağlantı başkasına verilmiş olabilir).
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pc;
+        private volatile boolean returned = false;
+
+        private LeaseHandler(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (returned) return null;
+                        returned = true;
+                    }
+                    release(pc);
+                    return null;
+                case "isClosed":
+                    return returned || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pc.physical + "]";
+                case "unwrap":
+                case "isWrapperFor":
+                    return unwrapLease(proxy, method, args);
+                case "setReadOnly":
+                    pc.readOnlyChanged = true;
+                    break;
+                case "setTransactionIsolation":
+                    pc.isolationChanged = true;
+                    break;
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Bağlantı havuza geri bırakıldıktan sonra kullanılamaz");
+            }
+            Object result = invokeTarget(pc.physical, method, args);
+            Class<?> type = method.getReturnType();
+            if (result != null && WRAPPED_TYPES.contains(type)) {
+                return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                        new ChildHandler(result, (Connection) proxy, this));
+            }
+            return result;
+        }
+
+        /**
+         * Bağlantı proxy'si kendi arayüzleri olarak açılır. Sürücüye özel bir arayüz (örn.
+         * PGConnection ile COPY) istenirse fiziksel bağlantı değil, sadece o arayüzü uygulayan
+         * bir proxy döner; java.sql.Connection'a dönüştürülemez ve geri bırakıldıktan sonra kullanılamaz.
+         */
+        private Object unwrapLease(Object proxy, Method method, Object[] args) throws SQLException {
+            Class<?> iface = (Class<?>) args[0];
+            if (iface.isInstance(proxy) || !iface.isInterface() || !iface.isInstance(pc.physical)) {
+                return unwrapSelf(proxy, method, args);
+            }
+            if (method.getName().equals("isWrapperFor")) {
+                return true;
+            }
+            return Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[]{iface},
+                    new ChildHandler(pc.physical, (Connection) proxy, this));
+        }
+    }
+
+    /**
+     * Ödünç verilen bağlantıdan alınan Statement ve DatabaseMetaData için proxy.
+     * getConnection() ödünç verilen proxy'yi döner; bağlantı geri bırakıldıktan sonra
+     * close dışındaki çağrılar hata verir.
+     */
+    private static final class ChildHandler implements InvocationHandler {
+        private final Object target;
+        private final Connection lease;
+        private final LeaseHandler owner;
+
+        private ChildHandler(Object target, Connection lease, LeaseHandler owner) {
+            this.target = target;
+            this.lease = lease;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getConnection":
+                    return lease;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return target.toString();
+                case "unwrap":
+                case "isWrapperFor":
+                    return unwrapSelf(proxy, method, args);
+                case "close":
+                    return invokeTarget(target, method, args);
+                default:
+                    break;
+            }
+            if (owner.returned) {
+                throw new SQLException("Bağlantı havuza geri bırakıldıktan sonra kullanılamaz");
+            }
+            return invokeTarget(target, method, args);
+        }
+    }
+}
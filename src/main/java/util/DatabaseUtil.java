@@ -1,8 +1,8 @@
 package util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
 public class DatabaseUtil {
 
@@ -10,6 +10,15 @@ public class DatabaseUtil {
     private static final String USER = "YOUR_USER";
     private static final String PASSWORD = "YOUR_PASSWORD";
 
+    // Havuz ayarları -D parametreleri ile değiştirilebilir (örn: -Ddb.pool.maxSize=20)
+    private static final int POOL_MIN_IDLE = Integer.getInteger("db.pool.minIdle", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("db.pool.maxSize", 10);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("db.pool.idleTimeoutMs", 5 * 60_000L);
+    private static final long POOL_BORROW_TIMEOUT_MS = Long.getLong("db.pool.borrowTimeoutMs", 10_000L);
+    private static final long POOL_VALIDATION_INTERVAL_MS = Long.getLong("db.pool.validationIntervalMs", 5_000L);
+
+    private static final ConnectionPool POOL;
+
     static {
         try {
             Class.forName("org.postgresql.Driver");
@@ -17,8 +26,36 @@ public class DatabaseUtil {
             System.err.println("PostgreSQL JDBC  bulunmadıı");
             e.printStackTrace();
         }
+
+        Properties props = new Properties();
+        props.setProperty("user", USER);
+        props.setProperty("password", PASSWORD);
+        // JDBC batch'leri tek bir çok satırlı INSERT olarak gönder
+        props.setProperty("reWriteBatchedInserts", "true");
+
+        POOL = new ConnectionPool(new ConnectionPool.Config(
+                URL,
+                props,
+                POOL_MIN_IDLE,
+                POOL_MAX_SIZE,
+                POOL_IDLE_TIMEOUT_MS,
+                POOL_BORROW_TIMEOUT_MS,
+                POOL_VALIDATION_INTERVAL_MS
+        ));
+        Runtime.getRuntime().addShutdownHook(new Thread(POOL::close, "db-pool-shutdown"));
     }
+
+    /**
+     * Havuzdan bir bağlantı döner. Bağlantı close() ile kapatıldığında havuza geri bırakılır.
+     */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        return POOL.getConnection();
+    }
+
+    /**
+     * Bağlantı havuzunun anlık istatistiklerini döner (aktif, boşta, bekleme süreleri vb.).
+     */
+    public static ConnectionPool.Stats getPoolStats() {
+        return POOL.getStats();
     }
 }
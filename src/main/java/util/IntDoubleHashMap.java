@@ -0,0 +1,110 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * int anahtar -> double değer eşlemesi yapan, kutulama (boxing) yapmayan basit hash tablosu.
+ * Açık adresleme (linear probing) kullanır. Thread-safe değildir.
+ */
+public class IntDoubleHashMap {
+
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private double[] values;
+    private int size;
+
+    public IntDoubleHashMap() {
+        this(16);
+    }
+
+    public IntDoubleHashMap(int expectedSize) {
+        int cap = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[cap];
+        values = new double[cap];
+        Arrays.fill(keys, FREE);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Anahtarın değerini döner; anahtar yoksa missingValue döner.
+     */
+    public double get(int key, double missingValue) {
+        int idx = indexOf(key);
+        return idx >= 0 ? values[idx] : missingValue;
+    }
+
+    public void put(int key, double value) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("Desteklenmeyen anahtar: " + key);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * Tablodaki anahtarları yeni bir dizi olarak döner (sıra garanti edilmez).
+     */
+    public int[] keys() {
+        int[] out = new int[size];
+        int n = 0;
+        for (int k : keys) {
+            if (k != FREE) out[n++] = k;
+        }
+        return out;
+    }
+
+    private int indexOf(int key) {
+        if (key == FREE) return -1;
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != FREE) {
+            if (keys[i] == key) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        keys = new int[newCapacity];
+        values = new double[newCapacity];
+        Arrays.fill(keys, FREE);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,101 @@
+package util;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Metrikleri JMX üzerinden PortfolioTrackingSystem:type=Metrics MBean'i olarak yayınlar.
+ * Değerler okunduğu anda kayıttan alınır; export sadece MBean'in kayıtlı olmasını sağlar.
+ * Her seri bir özniteliktir (örn: price_fetch_failures_total{reason="timeout"});
+ * histogramlar için _count ve _sum öznitelikleri verilir.
+ */
+public class JmxMetricsExporter implements MetricsExporter {
+
+    private static final String OBJECT_NAME = "PortfolioTrackingSystem:type=Metrics";
+
+    @Override
+    public void export(MetricsRegistry registry) throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(new MetricsMBean(registry), name);
+        }
+    }
+
+    private static final class MetricsMBean implements DynamicMBean {
+        private final MetricsRegistry registry;
+
+        MetricsMBean(MetricsRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            for (MetricsRegistry.Metric m : registry.metrics()) {
+                String key = m.name() + m.labels();
+                switch (m) {
+                    case MetricsRegistry.Counter c when key.equals(attribute) -> { return c.get(); }
+                    case MetricsRegistry.Gauge g when key.equals(attribute) -> { return g.get(); }
+                    case MetricsRegistry.Histogram h when (m.name() + "_count" + m.labels()).equals(attribute) -> { return h.count(); }
+                    case MetricsRegistry.Histogram h when (m.name() + "_sum" + m.labels()).equals(attribute) -> { return h.sum(); }
+                    default -> { }
+                }
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String a : attributes) {
+                try {
+                    list.add(new Attribute(a, getAttribute(a)));
+                } catch (AttributeNotFoundException ignored) {
+                    // Okuma sırasında kaybolan seriler atlanır
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) {
+            throw new UnsupportedOperationException("Metrikler salt okunurdur");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException("İşlem yok: " + actionName);
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attrs = new ArrayList<>();
+            for (MetricsRegistry.Metric m : registry.metrics()) {
+                String help = registry.help(m.name());
+                if (m instanceof MetricsRegistry.Histogram) {
+                    attrs.add(new MBeanAttributeInfo(m.name() + "_count" + m.labels(), "long", help, true, false, false));
+                    attrs.add(new MBeanAttributeInfo(m.name() + "_sum" + m.labels(), "double", help, true, false, false));
+                } else {
+                    String type = m instanceof MetricsRegistry.Counter ? "long" : "double";
+                    attrs.add(new MBeanAttributeInfo(m.name() + m.labels(), type, help, true, false, false));
+                }
+            }
+            return new MBeanInfo(getClass().getName(), "Fiyat toplama metrikleri",
+                    attrs.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
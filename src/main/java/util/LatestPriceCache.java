@@ -0,0 +1,196 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Varlıkların son fiyatlarını bellekte tutan, süre (TTL) ve boyut sınırlı önbellek.
+ * Anahtarlar kutulanmadan int dizilerinde tutulur (açık adresleme, linear probing).
+ *
+ * Fiyatlar PriceHistorySeeder ve PriceHistoryDao.insert tarafından yazılırken önbelleğe de
+ * yazılır (write-through); PriceHistoryDao okuma yaparken önce önbelleğe bakar.
+ */
+public class LatestPriceCache {
+
+    /**
+     * Önbellek sayaçları.
+     * @param evictions Kapasite dolduğu için atılan kayıt sayısı
+     * @param expirations Süresi dolduğu için atılan kayıt sayısı
+     */
+    public record Stats(long hits, long misses, long evictions, long expirations, int size, int maxEntries) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private static final LatestPriceCache INSTANCE = new LatestPriceCache(
+            Integer.getInteger("price.cache.maxEntries", 4096),
+            Long.getLong("price.cache.ttlMs", 5 * 60_000L)
+    );
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final int[] keys;
+    private final double[] prices;
+    private final long[] writtenAt;
+    private final int mask;
+    private int size;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public LatestPriceCache(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries 0'dan büyük olmalıdır");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        int capacity = Integer.highestOneBit(maxEntries * 2 - 1) << 1;
+        this.keys = new int[capacity];
+        this.prices = new double[capacity];
+        this.writtenAt = new long[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, FREE);
+    }
+
+    /**
+     * Uygulama genelinde paylaşılan önbellek.
+     */
+    public static LatestPriceCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Varlığın önbellekteki son fiyatını döner; kayıt yoksa veya süresi dolmuşsa NaN döner.
+     */
+    public synchronized double get(int assetId) {
+        int idx = indexOf(assetId);
+        if (idx < 0) {
+            misses++;
+            return Double.NaN;
+        }
+        if (System.nanoTime() - writtenAt[idx] > ttlNanos) {
+            removeAt(idx);
+            expirations++;
+            misses++;
+            return Double.NaN;
+        }
+        hits++;
+        return prices[idx];
+    }
+
+    /**
+     * Varlığın son fiyatını önbelleğe yazar.
+     */
+    public synchronized void put(int assetId, double price) {
+        if (assetId == FREE) return;
+
+        long now = System.nanoTime();
+        int idx = indexOf(assetId);
+        if (idx >= 0) {
+            prices[idx] = price;
+            writtenAt[idx] = now;
+            return;
+        }
+
+        if (size >= maxEntries) {
+            purgeExpired(now);
+            if (size >= maxEntries) {
+                removeAt(oldestIndex());
+                evictions++;
+            }
+        }
+
+        int i = slot(assetId);
+        while (keys[i] != FREE) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = assetId;
+        prices[i] = price;
+        writtenAt[i] = now;
+        size++;
+    }
+
+    /**
+     * Varlığın önbellek kaydını siler.
+     */
+    public synchronized void invalidate(int assetId) {
+        int idx = indexOf(assetId);
+        if (idx >= 0) {
+            removeAt(idx);
+        }
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, expirations, size, maxEntries);
+    }
+
+    // ----------------------------------------------------------------------
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private int indexOf(int key) {
+        int i = slot(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void purgeExpired(long now) {
+        for (int i = 0; i < keys.length; i++) {
+            // removeAt elemanları geri kaydırabilir; aynı slotu tekrar kontrol et
+            while (keys[i] != FREE && now - writtenAt[i] > ttlNanos) {
+                removeAt(i);
+                expirations++;
+            }
+        }
+    }
+
+    private int oldestIndex() {
+        int oldest = -1;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE && (oldest < 0 || writtenAt[i] - writtenAt[oldest] < 0)) {
+                oldest = i;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Linear probing için geri kaydırmalı silme: silinen slottan sonraki zincir
+     * elemanları, arama zinciri kopmayacak şekilde geri taşınır.
+     */
+    private void removeAt(int idx) {
+        int hole = idx;
+        int i = (idx + 1) & mask;
+        while (keys[i] != FREE) {
+            int home = slot(keys[i]);
+            // i'deki eleman, home..i aralığı hole'u kapsıyorsa hole'a taşınabilir
+            boolean movable = (i > hole) ? (home <= hole || home > i) : (home <= hole && home > i);
+            if (movable) {
+                keys[hole] = keys[i];
+                prices[hole] = prices[i];
+                writtenAt[hole] = writtenAt[i];
+                hole = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[hole] = FREE;
+        size--;
+    }
+}
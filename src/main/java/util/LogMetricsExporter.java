@@ -0,0 +1,32 @@
+package util;
+
+/**
+ * Sıfırdan farklı metrikleri standart çıktıya tek satırlık özetler olarak yazar.
+ * Histogramlar için gözlem sayısı ve ortalama (ms) yazılır.
+ */
+public class LogMetricsExporter implements MetricsExporter {
+
+    @Override
+    public void export(MetricsRegistry registry) {
+        StringBuilder sb = new StringBuilder("=== Metrikler ===\n");
+        for (MetricsRegistry.Metric m : registry.metrics()) {
+            switch (m) {
+                case MetricsRegistry.Counter c -> {
+                    if (c.get() == 0) continue;
+                    sb.append(m.name()).append(m.labels()).append(' ').append(c.get());
+                }
+                case MetricsRegistry.Gauge g ->
+                        sb.append(m.name()).append(m.labels()).append(' ').append(String.format("%.2f", g.get()));
+                case MetricsRegistry.Histogram h -> {
+                    if (h.count() == 0) continue;
+                    sb.append(m.name()).append(m.labels())
+                            .append(" count=").append(h.count())
+                            .append(" avgMs=").append(String.format("%.1f", h.sum() * 1000.0 / h.count()));
+                }
+                default -> { continue; }
+            }
+            sb.append('\n');
+        }
+        System.out.print(sb);
+    }
+}
@@ -0,0 +1,76 @@
+package util;
+
+/**
+ * Largest-Triangle-Three-Buckets (LTTB) seyreltme. Bir zaman serisini görsel şeklini
+ * koruyarak istenen nokta sayısına indirir: ilk ve son nokta her zaman korunur, aradaki
+ * noktalar eşit kovalara bölünür ve her kovadan, bir önceki seçilen nokta ile sonraki
+ * kovanın ortalamasıyla en büyük üçgeni oluşturan nokta seçilir. Tepe ve dipler kaybolmaz.
+ */
+public final class Lttb {
+
+    private Lttb() {}
+
+    /**
+     * x'e göre artan sıralı ilk n noktayı en fazla threshold noktaya indirir ve sonucu
+     * outX/outY dizilerine yazar. n &lt;= threshold ise noktalar olduğu gibi kopyalanır.
+     * @param outX En az min(n, threshold) uzunlukta olmalıdır
+     * @param outY En az min(n, threshold) uzunlukta olmalıdır
+     * @return Yazılan nokta sayısı
+     */
+    public static int downsample(double[] x, double[] y, int n, int threshold, double[] outX, double[] outY) {
+        if (threshold >= n || threshold < 3) {
+            System.arraycopy(x, 0, outX, 0, n);
+            System.arraycopy(y, 0, outY, 0, n);
+            return n;
+        }
+
+        // İlk ve son nokta hariç noktalar threshold - 2 kovaya bölünür
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        int out = 0;
+        outX[out] = x[0];
+        outY[out++] = y[0];
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // Sonraki kovanın ortalaması (son kovada son nokta)
+            int avgStart = (int) ((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) ((i + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x[j];
+                avgY += y[j];
+            }
+            int avgLen = avgEnd - avgStart;
+            if (avgLen > 0) {
+                avgX /= avgLen;
+                avgY /= avgLen;
+            } else {
+                avgX = x[n - 1];
+                avgY = y[n - 1];
+            }
+
+            // Mevcut kovadan en büyük üçgeni oluşturan nokta
+            int start = (int) (i * every) + 1;
+            int end = (int) ((i + 1) * every) + 1;
+            double ax = x[a];
+            double ay = y[a];
+            double maxArea = -1;
+            int next = start;
+            for (int j = start; j < end; j++) {
+                double area = Math.abs((ax - avgX) * (y[j] - ay) - (ax - x[j]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            outX[out] = x[next];
+            outY[out++] = y[next];
+            a = next;
+        }
+
+        outX[out] = x[n - 1];
+        outY[out++] = y[n - 1];
+        return out;
+    }
+}
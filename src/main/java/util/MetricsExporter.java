@@ -0,0 +1,25 @@
+package util;
+
+/**
+ * Metrik kaydını dışarıya aktaran hedef. MetricsPublisher tarafından periyodik olarak çağrılır.
+ */
+public interface MetricsExporter {
+
+    void export(MetricsRegistry registry) throws Exception;
+
+    /**
+     * Yapılandırmadaki adla exporter oluşturur (-Dmetrics.exporter):
+     *   log        -> LogMetricsExporter
+     *   jmx        -> JmxMetricsExporter
+     *   prometheus -> PrometheusFileExporter
+     */
+    static MetricsExporter create(String name) {
+        return switch (name.trim().toLowerCase()) {
+            case "log" -> new LogMetricsExporter();
+            case "jmx" -> new JmxMetricsExporter();
+            case "prometheus" -> new PrometheusFileExporter(
+                    java.nio.file.Path.of(System.getProperty("metrics.prometheus.file", "metrics.prom")));
+            default -> throw new IllegalArgumentException("Bilinmeyen metrik exporter'ı: " + name);
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package util;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrikleri yapılandırılmış exporter'a periyodik olarak aktarır.
+ * -Dmetrics.exporter (log, jmx, prometheus) verilmezse hiçbir şey yapılmaz.
+ */
+public class MetricsPublisher {
+
+    // Aktarım aralığı (-Dmetrics.exportIntervalMs ile değiştirilebilir)
+    private static final long INTERVAL_MS = Long.getLong("metrics.exportIntervalMs", 60_000L);
+
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Exporter yapılandırılmışsa arka planda periyodik aktarımı başlatır. Birden fazla çağrı
+     * tek bir iş başlatır.
+     */
+    public static synchronized void start() {
+        String name = System.getProperty("metrics.exporter");
+        if (scheduler != null || name == null || name.isBlank()) return;
+
+        MetricsExporter exporter = MetricsExporter.create(name);
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-publisher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                exporter.export(registry);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, 0, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Uygulama içi metrik kaydı. Sayaçlar, anlık değerler (gauge) ve gecikme histogramları
+ * ad + etiketlerle bir kez oluşturulur, sonraki çağrılar aynı nesneyi döner. Değerler
+ * dışarıya MetricsExporter uygulamalarıyla (log, JMX, Prometheus metin dosyası) verilir.
+ *
+ * Etiketler anahtar, değer sırasıyla verilir: counter("x_total", "...", "provider", "yahoo").
+ */
+public class MetricsRegistry {
+
+    public enum Type { COUNTER, GAUGE, HISTOGRAM }
+
+    // Gecikme histogramlarının üst sınırları (saniye); Prometheus'taki le etiketi
+    private static final double[] LATENCY_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    public abstract static class Metric {
+        private final String name;
+        private final String labels;
+
+        private Metric(String name, String labels) {
+            this.name = name;
+            this.labels = labels;
+        }
+
+        public String name() { return name; }
+
+        /**
+         * Prometheus biçiminde etiketler (örn: {provider="yahoo"}); etiket yoksa boş.
+         */
+        public String labels() { return labels; }
+
+        public abstract Type type();
+    }
+
+    public static final class Counter extends Metric {
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name, String labels) { super(name, labels); }
+
+        public void inc() { value.increment(); }
+        public void inc(long n) { value.add(n); }
+        public long get() { return value.sum(); }
+
+        @Override
+        public Type type() { return Type.COUNTER; }
+    }
+
+    public static final class Gauge extends Metric {
+        private volatile DoubleSupplier supplier;
+
+        private Gauge(String name, String labels, DoubleSupplier supplier) {
+            super(name, labels);
+            this.supplier = supplier;
+        }
+
+        public double get() { return supplier.getAsDouble(); }
+
+        @Override
+        public Type type() { return Type.GAUGE; }
+    }
+
+    public static final class Histogram extends Metric {
+        private final double[] bounds;
+        private final LongAdder[] buckets;
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+
+        private Histogram(String name, String labels, double[] bounds) {
+            super(name, labels);
+            this.bounds = bounds;
+            this.buckets = new LongAdder[bounds.length];
+            for (int i = 0; i < bounds.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void observe(double seconds) {
+            count.increment();
+            sum.add(seconds);
+            for (int i = 0; i < bounds.length; i++) {
+                if (seconds <= bounds[i]) {
+                    buckets[i].increment();
+                    return;
+                }
+            }
+        }
+
+        public void observeNanos(long nanos) {
+            observe(nanos / 1_000_000_000.0);
+        }
+
+        public long count() { return count.sum(); }
+        public double sum() { return sum.sum(); }
+        public double[] bounds() { return bounds.clone(); }
+
+        /**
+         * Her üst sınır için o sınıra eşit veya küçük gözlem sayısı (kümülatif).
+         */
+        public long[] cumulativeCounts() {
+            long[] c = new long[bounds.length];
+            long running = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                running += buckets[i].sum();
+                c[i] = running;
+            }
+            return c;
+        }
+
+        @Override
+        public Type type() { return Type.HISTOGRAM; }
+    }
+
+    // ad + etiketler -> metrik
+    private final ConcurrentHashMap<String, Metric> metrics = new ConcurrentHashMap<>();
+    // ad -> açıklama
+    private final ConcurrentHashMap<String, String> help = new ConcurrentHashMap<>();
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public Counter counter(String name, String description, String... labels) {
+        return register(name, description, labels, Counter.class, l -> new Counter(name, l));
+    }
+
+    /**
+     * Okunduğu anda supplier'dan hesaplanan değer. Aynı ad ve etiketle yeniden kaydedilirse
+     * supplier değiştirilir.
+     */
+    public Gauge gauge(String name, String description, DoubleSupplier supplier, String... labels) {
+        Gauge g = register(name, description, labels, Gauge.class, l -> new Gauge(name, l, supplier));
+        g.supplier = supplier;
+        return g;
+    }
+
+    /**
+     * Saniye cinsinden gecikme histogramı.
+     */
+    public Histogram histogram(String name, String description, String... labels) {
+        return register(name, description, labels, Histogram.class, l -> new Histogram(name, l, LATENCY_BUCKETS));
+    }
+
+    /**
+     * Kayıtlı metrikler, ada ve etiketlere göre sıralı.
+     */
+    public List<Metric> metrics() {
+        List<Metric> list = new ArrayList<>(metrics.values());
+        list.sort(Comparator.comparing(Metric::name).thenComparing(Metric::labels));
+        return list;
+    }
+
+    public String help(String name) {
+        return help.getOrDefault(name, "");
+    }
+
+    /**
+     * Tüm metrikleri Prometheus metin biçiminde yazar.
+     */
+    public void writePrometheus(Writer out) throws IOException {
+        String lastName = null;
+        for (Metric m : metrics()) {
+            if (!m.name().equals(lastName)) {
+                lastName = m.name();
+                out.write("# HELP " + m.name() + " " + help(m.name()) + "\n");
+                out.write("# TYPE " + m.name() + " " + m.type().name().toLowerCase(Locale.ROOT) + "\n");
+            }
+            switch (m) {
+                case Counter c -> out.write(m.name() + m.labels() + " " + c.get() + "\n");
+                case Gauge g -> out.write(m.name() + m.labels() + " " + format(g.get()) + "\n");
+                case Histogram h -> {
+                    double[] bounds = h.bounds();
+                    long[] counts = h.cumulativeCounts();
+                    for (int i = 0; i < bounds.length; i++) {
+                        out.write(m.name() + "_bucket" + withLabel(m.labels(), "le", format(bounds[i])) + " " + counts[i] + "\n");
+                    }
+                    out.write(m.name() + "_bucket" + withLabel(m.labels(), "le", "+Inf") + " " + h.count() + "\n");
+                    out.write(m.name() + "_sum" + m.labels() + " " + format(h.sum()) + "\n");
+                    out.write(m.name() + "_count" + m.labels() + " " + h.count() + "\n");
+                }
+                default -> throw new IllegalStateException("Bilinmeyen metrik: " + m.name());
+            }
+        }
+    }
+
+    private <T extends Metric> T register(String name, String description, String[] labels, Class<T> type,
+                                          java.util.function.Function<String, T> factory) {
+        String rendered = renderLabels(labels);
+        help.putIfAbsent(name, description);
+        Metric m = metrics.computeIfAbsent(name + rendered, k -> factory.apply(rendered));
+        if (!type.isInstance(m)) {
+            throw new IllegalArgumentException(name + " farklı türde kayıtlı: " + m.type());
+        }
+        return type.cast(m);
+    }
+
+    private static String renderLabels(String[] labels) {
+        if (labels.length == 0) return "";
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Etiketler anahtar, değer çiftleri olarak verilmelidir");
+        }
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String withLabel(String labels, String key, String value) {
+        String extra = key + "=\"" + value + "\"";
+        return labels.isEmpty() ? "{" + extra + "}" : labels.substring(0, labels.length() - 1) + "," + extra + "}";
+    }
+
+    private static String escape(String v) {
+        if (v == null) return "";
+        return v.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(double d) {
+        if (Double.isNaN(d)) return "NaN";
+        if (Double.isInfinite(d)) return d > 0 ? "+Inf" : "-Inf";
+        return Double.toString(d);
+    }
+}
@@ -0,0 +1,72 @@
+package util;
+
+import dao.PortfolioValueDao;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * portfolio_values tablosunu periyodik olarak sıkıştıran iş.
+ * Ham kayıtlar RAW_RETENTION_HOURS sonra saatlik katmana taşınır; saatlik kayıtlar
+ * portfolio.values.hourlyRetentionDays sonra silinir. Günlük katman silinmez.
+ */
+public class PortfolioValueCompactor {
+
+    // Sıkıştırma aralığı (-Dportfolio.values.compactIntervalMs ile değiştirilebilir)
+    private static final long INTERVAL_MS = Long.getLong("portfolio.values.compactIntervalMs", 60 * 60_000L);
+    // Saatlik kayıtların saklanma süresi
+    private static final int HOURLY_RETENTION_DAYS = Integer.getInteger("portfolio.values.hourlyRetentionDays", 90);
+
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Sıkıştırmayı bir kez çalıştırır.
+     * @return [saatlik katmana yazılan, silinen ham, silinen saatlik] kayıt sayıları; hata olursa null
+     */
+    public static int[] runOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        return new PortfolioValueDao().compact(
+                now.minusHours(PortfolioValueDao.RAW_RETENTION_HOURS),
+                now.minusDays(HOURLY_RETENTION_DAYS)
+        );
+    }
+
+    /**
+     * Arka planda periyodik sıkıştırmayı başlatır. Birden fazla çağrı tek bir iş başlatır.
+     */
+    public static synchronized void start() {
+        if (scheduler != null) return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "portfolio-value-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                runOnce();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, 1, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public static void main(String[] args) {
+        int[] result = runOnce();
+        if (result == null) {
+            System.out.println("!! HATA sıkıştırma başarısız");
+            System.exit(1);
+        }
+        System.out.println("=== Bitti. Saatlik=" + result[0] + " Silinen ham=" + result[1]
+                + " Silinen saatlik=" + result[2] + " ===");
+    }
+}
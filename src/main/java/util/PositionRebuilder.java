@@ -0,0 +1,51 @@
+package util;
+
+import dao.PositionDao;
+
+import java.util.List;
+
+/**
+ * positions tablosunu trades tablosuyla uzlaştırmak için komut satırı aracı.
+ *
+ * Kullanım:
+ *   PositionRebuilder verify           -> uyuşmazlıkları listeler
+ *   PositionRebuilder rebuild          -> tüm pozisyonları yeniden oluşturur
+ *   PositionRebuilder rebuild &lt;userId&gt; -> tek kullanıcının pozisyonlarını yeniden oluşturur
+ */
+public class PositionRebuilder {
+
+    public static void main(String[] args) {
+        String command = args.length > 0 ? args[0] : "verify";
+        PositionDao positionDao = new PositionDao();
+
+        switch (command) {
+            case "verify" -> {
+                List<PositionDao.Mismatch> mismatches = positionDao.verify();
+                for (PositionDao.Mismatch m : mismatches) {
+                    System.out.println("!! UYUŞMAZLIK user_id=" + m.userId() + " asset_id=" + m.assetId()
+                            + " net_qty=" + m.actualNetQty() + " (beklenen " + m.expectedNetQty() + ")"
+                            + " buy_qty=" + m.actualBuyQty() + " (beklenen " + m.expectedBuyQty() + ")"
+                            + " buy_notional=" + m.actualBuyNotional() + " (beklenen " + m.expectedBuyNotional() + ")");
+                }
+                System.out.println("=== Bitti. Uyuşmazlık=" + mismatches.size() + " ===");
+                if (!mismatches.isEmpty()) {
+                    System.exit(1);
+                }
+            }
+            case "rebuild" -> {
+                int created = args.length > 1
+                        ? positionDao.rebuildUser(Integer.parseInt(args[1]))
+                        : positionDao.rebuildAll();
+                if (created < 0) {
+                    System.out.println("!! HATA pozisyonlar yeniden oluşturulamadı");
+                    System.exit(1);
+                }
+                System.out.println("=== Bitti. Pozisyon=" + created + " ===");
+            }
+            default -> {
+                System.out.println("Kullanım: PositionRebuilder verify | rebuild [userId]");
+                System.exit(2);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package util;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Uygulama içi fiyat güncelleme yayını. PriceHistorySeeder fiyatları veritabanına yazdıktan
+ * sonra o turdaki fiyatları tek olay listesi olarak yayınlar; aboneler portföyü yeniden
+ * yüklemek yerine sadece değişen varlıkları günceller.
+ */
+public class PriceEventBus {
+
+    /**
+     * Kaydedilen tek bir fiyat. Fiyat varlığın kendi para birimindedir.
+     */
+    public record PriceUpdate(int assetId, double price, LocalDateTime priceTime) {}
+
+    /**
+     * Abonelere yayıncının thread'inde çağrılır; Swing bileşenlerine dokunacak aboneler
+     * SwingUtilities.invokeLater kullanmalıdır. Uzun süren işler yayını bekletir.
+     */
+    public interface Listener {
+        void onPrices(List<PriceUpdate> updates);
+    }
+
+    private static final PriceEventBus INSTANCE = new PriceEventBus();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public static PriceEventBus getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Aboneliği başlatır.
+     * @return Aboneliği sonlandıran nesne
+     */
+    public AutoCloseable subscribe(Listener listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    /**
+     * Fiyatları tüm abonelere iletir. Bir abonenin hatası diğerlerini etkilemez.
+     */
+    public void publish(List<PriceUpdate> updates) {
+        if (updates.isEmpty()) return;
+        List<PriceUpdate> snapshot = List.copyOf(updates);
+        for (Listener l : listeners) {
+            try {
+                l.onPrices(snapshot);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -1,70 +1,90 @@
 package util;
 
+import dao.PriceHistoryDao;
+import dao.PriceHistoryDao.PricePoint;
 import model.Asset;
-import service.YahooFinancePriceService;
+import service.PriceFetchException;
+import service.PriceProvider;
+import service.PriceProviders;
 
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 public class PriceHistorySeeder {
 
+    // Aynı anda en fazla kaç fiyat isteği yapılacağı (-Dprice.fetch.maxInFlight ile değiştirilebilir)
+    private static final int DEFAULT_MAX_IN_FLIGHT = Integer.getInteger("price.fetch.maxInFlight", 16);
+
+    // Aynı varlık için eşzamanlı çekimler birleştirilir; başarılı sonuç bu süre boyunca
+    // yeniden çekilmeden paylaşılır (-Dprice.fetch.freshnessMs ile değiştirilebilir)
+    private static final SingleFlight<Integer, FetchResult> FLIGHTS =
+            new SingleFlight<>(Long.getLong("price.fetch.freshnessMs", 5_000L));
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();
+    private static final MetricsRegistry.Histogram CYCLE_TIME = METRICS.histogram(
+            "price_cycle_seconds", "Fiyat çekme turunun baştan sona süresi (çekim + yazım)");
+    private static final MetricsRegistry.Histogram INSERT_TIME = METRICS.histogram(
+            "price_insert_seconds", "Çekilen fiyatların veritabanına toplu yazım süresi");
+    private static final MetricsRegistry.Counter FETCH_OK = METRICS.counter(
+            "price_fetch_success_total", "Başarıyla çekilip kaydedilen fiyat sayısı");
+
+    // asset_id -> son başarılı kaydın zamanı (System.currentTimeMillis); bayatlık ölçümü için
+    private static final Map<Integer, Long> LAST_SAVED_AT = new ConcurrentHashMap<>();
+
+    /**
+     * Yazım başarısız olduğunda o turdaki fiyatlara verilen hata.
+     */
+    private static final class WriteFailedException extends RuntimeException {
+        WriteFailedException() {
+            super("Fiyatlar veritabanına yazılamadı");
+        }
+    }
+
+    /**
+     * Tek bir varlık için fiyat çekme sonucu. Hata yoksa error null'dır.
+     */
+    private record FetchResult(Asset asset, double price, LocalDateTime fetchedAt, Exception error) {}
+
     /**
      * Tüm varlıklar için güncel fiyatları çekip veritabanına kaydeder.
      * @param verbose true ise konsola detaylı log yazdırır
      * @return Başarılı ve başarısız işlem sayılarını içeren bir dizi [ok, fail]
      */
     public static int[] fetchAndSavePrices(boolean verbose) {
+        return fetchAndSavePrices(verbose, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Tüm varlıklar için güncel fiyatları eşzamanlı olarak çekip veritabanına kaydeder.
+     * @param verbose true ise konsola detaylı log yazdırır
+     * @param maxInFlight Aynı anda yapılacak en fazla istek sayısı (1 ve altı sıralı çekim demektir)
+     * @return Başarılı ve başarısız işlem sayılarını içeren bir dizi [ok, fail]
+     */
+    public static int[] fetchAndSavePrices(boolean verbose, int maxInFlight) {
         if (verbose) {
             System.out.println("=== Fiyatlar Çekilmeye başlandı ===");
         }
-        YahooFinancePriceService priceService = new YahooFinancePriceService();
 
         String selectSql = "SELECT id, symbol, currency, yahoo_symbol FROM assets ORDER BY id";
-        String insertSql = "INSERT INTO prices_history(asset_id, price, currency, source, price_time) " +
-                "VALUES (?, ?, ?, ?, ?)";
-
-        int ok = 0, fail = 0;
-
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement psSelect = conn.prepareStatement(selectSql);
-             ResultSet rs = psSelect.executeQuery();
-             PreparedStatement psInsert = conn.prepareStatement(insertSql)) {
-
-            while (rs.next()) {
-                int assetId = rs.getInt("id");
-                String symbol = rs.getString("symbol");
-                String currency = rs.getString("currency");
-                String yahooSymbol = rs.getString("yahoo_symbol");
-
-                Asset a = new Asset();
-                a.setId(assetId);
-                a.setSymbol(symbol);
-                a.setCurrency(currency);
-                a.setYahooSymbol(yahooSymbol);
-
-                try {
-                    double price = priceService.fetchCurrentPrice(a);
-
-                    psInsert.setInt(1, assetId);
-                    psInsert.setDouble(2, price);
-                    psInsert.setString(3, currency != null ? currency : "TRY");
-                    psInsert.setString(4, "YAHOO");
-                    psInsert.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
-                    psInsert.executeUpdate();
-
-                    ok++;
-                    if (verbose) {
-                        System.out.println("OK  asset_id=" + assetId + " yahoo=" + yahooSymbol + " price=" + price);
-                    }
-                } catch (Exception ex) {
-                    fail++;
-                    if (verbose) {
-                        System.out.println("!! HATA asset_id=" + assetId + " yahoo=" + yahooSymbol + " => " + ex.getMessage());
-                    }
-                }
-            }
 
+        int[] result;
+        try {
+            List<Asset> assets = loadAssets(selectSql, null);
+            result = fetchAndPersist(assets, maxInFlight, verbose);
         } catch (Exception e) {
             if (verbose) {
                 e.printStackTrace();
@@ -73,9 +93,9 @@ public class PriceHistorySeeder {
         }
 
         if (verbose) {
-            System.out.println("=== Bitti. OK=" + ok + " FAIL=" + fail + " ===");
+            System.out.println("=== Bitti. OK=" + result[0] + " FAIL=" + result[1] + " ===");
         }
-        return new int[]{ok, fail};
+        return result;
     }
 
     /**
@@ -92,12 +112,20 @@ public class PriceHistorySeeder {
      * @return Başarılı ve başarısız işlem sayılarını içeren bir dizi [ok, fail]
      */
     public static int[] fetchAndSavePricesForAssets(Set<Integer> assetIds) {
+        return fetchAndSavePricesForAssets(assetIds, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Belirli asset ID'lerine sahip varlıklar için güncel fiyatları eşzamanlı olarak çekip veritabanına kaydeder.
+     * @param assetIds Fiyatları çekilecek asset ID'leri listesi
+     * @param maxInFlight Aynı anda yapılacak en fazla istek sayısı (1 ve altı sıralı çekim demektir)
+     * @return Başarılı ve başarısız işlem sayılarını içeren bir dizi [ok, fail]
+     */
+    public static int[] fetchAndSavePricesForAssets(Set<Integer> assetIds, int maxInFlight) {
         if (assetIds == null || assetIds.isEmpty()) {
             return new int[]{0, 0};
         }
 
-        YahooFinancePriceService priceService = new YahooFinancePriceService();
-
         // IN clause için placeholder'lar oluştur
         String placeholders = assetIds.stream()
                 .map(id -> "?")
@@ -105,53 +133,322 @@ public class PriceHistorySeeder {
                 .orElse("");
 
         String selectSql = "SELECT id, symbol, currency, yahoo_symbol FROM assets WHERE id IN (" + placeholders + ") ORDER BY id";
-        String insertSql = "INSERT INTO prices_history(asset_id, price, currency, source, price_time) " +
-                "VALUES (?, ?, ?, ?, ?)";
 
-        int ok = 0, fail = 0;
+        try {
+            List<Asset> assets = loadAssets(selectSql, assetIds);
+            return fetchAndPersist(assets, maxInFlight, false);
+        } catch (Exception e) {
+            throw new RuntimeException("Fiyat çekme işlemi sırasında hata oluştu: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Varlıkların fiyatlarını çekip kaydeder. Başka bir çağrı tarafından şu an çekilen veya az önce
+     * çekilip kaydedilen varlıklar tekrar çekilmez; o çağrının sonucu beklenir ve paylaşılır.
+     * Bu çağrının sahiplendiği varlıklar tek seferde çekilir ve tek transaction'da yazılır.
+     * @return [ok, fail]
+     */
+    private static int[] fetchAndPersist(List<Asset> assets, int maxInFlight, boolean verbose) throws InterruptedException {
+        long started = System.nanoTime();
+        List<Asset> owned = new ArrayList<>(assets.size());
+        List<CompletableFuture<FetchResult>> shared = new ArrayList<>();
+        for (Asset a : assets) {
+            CompletableFuture<FetchResult> f = FLIGHTS.joinOrClaim(a.getId());
+            if (f == null) {
+                owned.add(a);
+            } else {
+                shared.add(f);
+            }
+        }
+
+        int ok = 0;
+        int fail = 0;
+        List<FetchResult> results = List.of();
+        try {
+            results = persist(fetchAll(owned, maxInFlight), verbose);
+        } finally {
+            // Sahiplenilen her varlık sonlandırılır; aksi halde bekleyen çağrılar takılı kalır
+            for (FetchResult r : results) {
+                if (r.error() == null) {
+                    FLIGHTS.complete(r.asset().getId(), r);
+                } else {
+                    FLIGHTS.fail(r.asset().getId(), r.error());
+                }
+            }
+            if (results.size() < owned.size()) {
+                RuntimeException aborted = new RuntimeException("Fiyat çekimi yarıda kesildi");
+                for (Asset a : owned) {
+                    FLIGHTS.fail(a.getId(), aborted);
+                }
+            }
+        }
+
+        for (FetchResult r : results) {
+            if (r.error() == null) {
+                ok++;
+            } else {
+                fail++;
+                METRICS.counter("price_fetch_failures_total", "Başarısız fiyat çekimleri, hata türüne göre",
+                        "reason", failureReason(r.error())).inc();
+            }
+        }
+        FETCH_OK.inc(ok);
+        if (!owned.isEmpty()) {
+            CYCLE_TIME.observeNanos(System.nanoTime() - started);
+        }
+
+        for (CompletableFuture<FetchResult> f : shared) {
+            try {
+                f.get();
+                ok++;
+            } catch (ExecutionException e) {
+                fail++;
+            }
+        }
+        return new int[]{ok, fail};
+    }
+
+    /**
+     * Fiyatı çekilecek varlıkları okur. Bağlantı ağ istekleri boyunca tutulmaz.
+     */
+    private static List<Asset> loadAssets(String selectSql, Set<Integer> assetIds) throws SQLException {
+        List<Asset> assets = new ArrayList<>();
 
         try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement psSelect = conn.prepareStatement(selectSql);
-             PreparedStatement psInsert = conn.prepareStatement(insertSql)) {
+             PreparedStatement psSelect = conn.prepareStatement(selectSql)) {
 
             // IN clause parametrelerini set et
-            int paramIndex = 1;
-            for (Integer assetId : assetIds) {
-                psSelect.setInt(paramIndex++, assetId);
+            if (assetIds != null) {
+                int paramIndex = 1;
+                for (Integer assetId : assetIds) {
+                    psSelect.setInt(paramIndex++, assetId);
+                }
             }
             try (ResultSet rs = psSelect.executeQuery()) {
                 while (rs.next()) {
-                    int assetId = rs.getInt("id");
-                    String symbol = rs.getString("symbol");
-                    String currency = rs.getString("currency");
-                    String yahooSymbol = rs.getString("yahoo_symbol");
-
                     Asset a = new Asset();
-                    a.setId(assetId);
-                    a.setSymbol(symbol);
-                    a.setCurrency(currency);
-                    a.setYahooSymbol(yahooSymbol);
+                    a.setId(rs.getInt("id"));
+                    a.setSymbol(rs.getString("symbol"));
+                    a.setCurrency(rs.getString("currency"));
+                    a.setYahooSymbol(rs.getString("yahoo_symbol"));
+                    assets.add(a);
+                }
+            }
+        }
+        return assets;
+    }
+
+    /**
+     * Fiyatları çeker. Sağlayıcı toplu çekimi destekliyorsa varlıklar maxBatchSize'lık parçalara
+     * bölünür ve her parça tek istekle çekilir. maxInFlight 1'den büyükse istekler (parçalar)
+     * sanal thread'lere dağıtılır ve aynı anda en fazla maxInFlight istek yapılır; böylece toplam
+     * süre isteklerin toplamı yerine en yavaş isteğe yakın olur. Sonuçlar giriş sırasıyla döner.
+     */
+    private static List<FetchResult> fetchAll(List<Asset> assets, int maxInFlight) throws InterruptedException {
+        PriceProvider priceProvider = PriceProviders.get();
+        int batchSize = Math.max(1, priceProvider.maxBatchSize());
+
+        List<List<Asset>> chunks = new ArrayList<>((assets.size() + batchSize - 1) / batchSize);
+        for (int from = 0; from < assets.size(); from += batchSize) {
+            chunks.add(assets.subList(from, Math.min(from + batchSize, assets.size())));
+        }
+
+        List<FetchResult> results = new ArrayList<>(assets.size());
+
+        if (maxInFlight <= 1 || chunks.size() <= 1) {
+            for (List<Asset> chunk : chunks) {
+                results.addAll(fetchChunk(priceProvider, chunk));
+            }
+            return results;
+        }
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        List<Future<List<FetchResult>>> futures = new ArrayList<>(chunks.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<Asset> chunk : chunks) {
+                futures.add(executor.submit(() -> {
+                    inFlight.acquire();
                     try {
-                        double price = priceService.fetchCurrentPrice(a);
-                        psInsert.setInt(1, assetId);
-                        psInsert.setDouble(2, price);
-                        psInsert.setString(3, currency != null ? currency : "TRY");
-                        psInsert.setString(4, "YAHOO");
-                        psInsert.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
-                        psInsert.executeUpdate();
-                        ok++;
-                    } catch (Exception ex) {
-                        fail++;
+                        return fetchChunk(priceProvider, chunk);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.addAll(futures.get(i).get());
+                } catch (ExecutionException ex) {
+                    Exception cause = ex.getCause() instanceof Exception c ? c : ex;
+                    for (Asset a : chunks.get(i)) {
+                        results.add(new FetchResult(a, 0, LocalDateTime.now(), cause));
                     }
                 }
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Fiyat çekme işlemi sırasında hata oluştu: " + e.getMessage(), e);
         }
-        return new int[]{ok, fail};
+        return results;
     }
+
+    /**
+     * Bir parçayı çeker: tek varlıksa tekli istek, değilse sağlayıcının toplu çekimi kullanılır.
+     */
+    private static List<FetchResult> fetchChunk(PriceProvider priceProvider, List<Asset> chunk) {
+        if (chunk.size() == 1) {
+            return List.of(fetchOne(priceProvider, chunk.get(0)));
+        }
+
+        long started = System.nanoTime();
+        List<PriceProvider.Result> fetched;
+        try {
+            fetched = priceProvider.fetchCurrentPrices(chunk);
+        } finally {
+            METRICS.histogram("price_fetch_batch_seconds", "Toplu fiyat isteği süresi",
+                    "provider", priceProvider.name()).observeNanos(System.nanoTime() - started);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<FetchResult> results = new ArrayList<>(fetched.size());
+        for (PriceProvider.Result r : fetched) {
+            if (!r.ok()) {
+                results.add(new FetchResult(r.asset(), 0, now, r.error()));
+            } else if (!Double.isFinite(r.price())) {
+                results.add(new FetchResult(r.asset(), 0, now, new RuntimeException("Geçersiz fiyat: " + r.price())));
+            } else {
+                results.add(new FetchResult(r.asset(), r.price(), now, null));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Tek varlığın fiyatını çeker. İstek süresi başarılı ve başarısız (zaman aşımı, HTTP
+     * hatası) çekimler için outcome etiketiyle ayrı ayrı kaydedilir.
+     */
+    private static FetchResult fetchOne(PriceProvider priceProvider, Asset a) {
+        long started = System.nanoTime();
+        String outcome = "error";
+        try {
+            double price = priceProvider.fetchCurrentPrice(a);
+            if (!Double.isFinite(price)) {
+                throw new RuntimeException("Geçersiz fiyat: " + price);
+            }
+            outcome = "ok";
+            return new FetchResult(a, price, LocalDateTime.now(), null);
+        } catch (Exception ex) {
+            return new FetchResult(a, 0, LocalDateTime.now(), ex);
+        } finally {
+            METRICS.histogram("price_fetch_seconds", "Tek sembol fiyat isteği süresi",
+                    "provider", priceProvider.name(), "symbol", symbolOf(a), "outcome", outcome)
+                    .observeNanos(System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Çekilen fiyatları tek transaction içinde toplu olarak prices_history tablosuna yazar.
+     * Yakalanan dakikalık mumlar varsa onlar da ohlc_1m tablosuna yazılır.
+     * Yazım başarısız olursa o turdaki tüm fiyatlar başarısız sayılır; başarılıysa kaydedilen
+     * fiyatlar PriceEventBus üzerinden yayınlanır.
+     * @return Giriş sırasıyla sonuçlar; yazılamayan fiyatların error alanı doludur
+     */
+    private static List<FetchResult> persist(List<FetchResult> fetched, boolean verbose) {
+        List<PricePoint> points = new ArrayList<>(fetched.size());
+        String source = PriceProviders.get().name().toUpperCase();
+
+        for (FetchResult r : fetched) {
+            Asset a = r.asset();
+            if (r.error() != null) {
+                if (verbose) {
+                    System.out.println("!! HATA asset_id=" + a.getId() + " yahoo=" + a.getYahooSymbol() + " => " + r.error().getMessage());
+                }
+                continue;
+            }
+            points.add(new PricePoint(
+                    a.getId(),
+                    r.price(),
+                    a.getCurrency() != null ? a.getCurrency() : "TRY",
+                    source,
+                    r.fetchedAt()
+            ));
+        }
+
+        // Mum yakalama açıksa fiyat çekimi sırasında biriken mumları da yaz
+        if (!CandleRecorder.getInstance().flush() && verbose) {
+            System.out.println("!! HATA mumlar veritabanına yazılamadı");
+        }
+
+        long insertStarted = System.nanoTime();
+        boolean written = new PriceHistoryDao().insertBatch(points);
+        INSERT_TIME.observeNanos(System.nanoTime() - insertStarted);
+        if (!written) {
+            if (verbose) {
+                System.out.println("!! HATA " + points.size() + " fiyat veritabanına yazılamadı");
+            }
+            RuntimeException writeError = new WriteFailedException();
+            List<FetchResult> results = new ArrayList<>(fetched.size());
+            for (FetchResult r : fetched) {
+                results.add(r.error() != null ? r : new FetchResult(r.asset(), r.price(), r.fetchedAt(), writeError));
+            }
+            return results;
+        }
+
+        if (verbose) {
+            for (PricePoint p : points) {
+                System.out.println("OK  asset_id=" + p.assetId() + " price=" + p.price());
+            }
+        }
+
+        recordSaved(fetched);
+
+        // Kaydedilen fiyatları abonelere bildir (transaction commit edildikten sonra)
+        List<PriceEventBus.PriceUpdate> updates = new ArrayList<>(points.size());
+        for (PricePoint p : points) {
+            updates.add(new PriceEventBus.PriceUpdate(p.assetId(), p.price(), p.priceTime()));
+        }
+        PriceEventBus.getInstance().publish(updates);
+        return fetched;
+    }
+
+    /**
+     * Kaydedilen varlıkların son kayıt zamanını günceller. Her varlık için bir bayatlık
+     * göstergesi (price_staleness_seconds) ilk kayıtta oluşturulur.
+     */
+    private static void recordSaved(List<FetchResult> fetched) {
+        long now = System.currentTimeMillis();
+        for (FetchResult r : fetched) {
+            if (r.error() != null) continue;
+            int assetId = r.asset().getId();
+            if (LAST_SAVED_AT.put(assetId, now) == null) {
+                METRICS.gauge("price_staleness_seconds", "Varlığın son başarılı fiyat kaydından bu yana geçen süre",
+                        () -> (System.currentTimeMillis() - LAST_SAVED_AT.get(assetId)) / 1000.0,
+                        "asset_id", String.valueOf(assetId), "symbol", symbolOf(r.asset()));
+            }
+        }
+    }
+
+    /**
+     * Hatayı metriklerde kullanılan kategoriye çevirir.
+     */
+    private static String failureReason(Exception e) {
+        if (e instanceof WriteFailedException) return "db_write";
+        if (e instanceof PriceFetchException pfe) {
+            if (pfe.isCircuitOpen()) return "circuit_open";
+            if (pfe.getStatusCode() == 429) return "rate_limited";
+            if (pfe.getStatusCode() >= 500) return "http_5xx";
+            if (pfe.getStatusCode() > 0) return "http_4xx";
+        }
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof HttpTimeoutException || t instanceof SocketTimeoutException) return "timeout";
+        }
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof IOException) return "network";
+        }
+        return "data";
+    }
+
+    private static String symbolOf(Asset a) {
+        return a.getYahooSymbol() != null ? a.getYahooSymbol() : String.valueOf(a.getSymbol());
+    }
+
     public static void main(String[] args) {
         fetchAndSavePrices(true); // Konsol çıktısı ile
     }
 }
-
@@ -0,0 +1,30 @@
+package util;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Metrikleri Prometheus metin biçiminde bir dosyaya yazar (node_exporter textfile
+ * toplayıcısı için). Dosya önce geçici dosyaya yazılır, sonra tek adımda yerine taşınır;
+ * okuyucu yarım yazılmış dosya görmez.
+ */
+public class PrometheusFileExporter implements MetricsExporter {
+
+    private final Path file;
+
+    public PrometheusFileExporter(Path file) {
+        this.file = file.toAbsolutePath();
+    }
+
+    @Override
+    public void export(MetricsRegistry registry) throws Exception {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            registry.writePrometheus(out);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,99 @@
+package util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Aynı anahtar için eşzamanlı istekleri tek bir çağrıda birleştirir (single-flight).
+ * Bir anahtar için çağrı sürerken gelen istekler o çağrının sonucunu bekler; başarılı
+ * sonuçlar freshnessMillis boyunca yeni çağrı yapılmadan paylaşılır. Başarısız çağrılar
+ * paylaşılmaz, bir sonraki istek yeniden dener.
+ *
+ * Toplu kullanım için joinOrClaim ile anahtarlar sahiplenilir; sahip olunan her anahtar
+ * mutlaka complete veya fail ile sonlandırılmalıdır, aksi halde bekleyenler takılı kalır.
+ */
+public class SingleFlight<K, V> {
+
+    private static final class Call<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        volatile long completedAt;
+    }
+
+    private final long freshNanos;
+    private final ConcurrentHashMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+
+    public SingleFlight(long freshnessMillis) {
+        this.freshNanos = freshnessMillis * 1_000_000L;
+    }
+
+    /**
+     * Anahtar için süren ya da taze bir çağrı varsa onun sonucunu döner. Yoksa anahtarı
+     * çağırana ayırır ve null döner; bu durumda çağıran sonucu complete veya fail ile bildirir.
+     */
+    public CompletableFuture<V> joinOrClaim(K key) {
+        // compute anahtar başına atomiktir: aynı anahtarı yalnızca bir çağıran sahiplenebilir
+        Object[] claimed = new Object[1];
+        Call<V> call = calls.compute(key, (k, existing) -> {
+            if (existing != null && isShareable(existing)) {
+                return existing;
+            }
+            Call<V> fresh = new Call<>();
+            claimed[0] = fresh;
+            return fresh;
+        });
+        return claimed[0] == call ? null : call.future;
+    }
+
+    /**
+     * Sahiplenilen anahtarın sonucunu bekleyenlere iletir.
+     */
+    public void complete(K key, V value) {
+        Call<V> call = calls.get(key);
+        if (call != null && !call.future.isDone()) {
+            call.completedAt = System.nanoTime();
+            call.future.complete(value);
+        }
+    }
+
+    /**
+     * Sahiplenilen anahtarın çağrısını hatalı sonlandırır; sonuç paylaşılmaz.
+     */
+    public void fail(K key, Throwable error) {
+        Call<V> call = calls.get(key);
+        if (call != null && !call.future.isDone()) {
+            calls.remove(key, call);
+            call.future.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Tek anahtar için: süren veya taze çağrı varsa sonucunu bekler, yoksa loader'ı çalıştırır.
+     */
+    public V execute(K key, Callable<V> loader) throws Exception {
+        CompletableFuture<V> shared = joinOrClaim(key);
+        if (shared != null) {
+            try {
+                return shared.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception c ? c : e;
+            }
+        }
+
+        try {
+            V value = loader.call();
+            complete(key, value);
+            return value;
+        } catch (Exception | Error e) {
+            fail(key, e);
+            throw e;
+        }
+    }
+
+    private boolean isShareable(Call<V> call) {
+        if (!call.future.isDone()) return true;
+        if (call.future.isCompletedExceptionally()) return false;
+        return System.nanoTime() - call.completedAt < freshNanos;
+    }
+}
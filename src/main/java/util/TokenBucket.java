@@ -0,0 +1,52 @@
+package util;
+
+/**
+ * Jeton kovası hız sınırlayıcısı. Kova saniyede ratePerSecond jetonla dolar ve en fazla
+ * burst jeton biriktirir; her istek bir jeton harcar. Jeton yoksa çağıran bekletilir.
+ */
+public class TokenBucket {
+
+    private final double ratePerNano;
+    private final double burst;
+
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("ratePerSecond ve burst 0'dan büyük olmalıdır");
+        }
+        this.ratePerNano = ratePerSecond / 1_000_000_000.0;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Bir jeton alır; jeton yoksa birikene kadar bekler.
+     * @return Beklenen süre (nanosaniye); beklenmediyse 0
+     */
+    public long acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000L, (int) (waitNanos % 1_000_000L));
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Jetonu hemen ayırır (gerekirse borç olarak) ve jetonun kullanılabileceği ana kadar
+     * beklenmesi gereken süreyi döner. Bekleme kilit dışında yapılır.
+     */
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerNano);
+        refilledAt = now;
+
+        tokens -= 1;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(-tokens / ratePerNano);
+    }
+}
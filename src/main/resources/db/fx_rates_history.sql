@@ -0,0 +1,13 @@
+-- Döviz kuru geçmişi. service.FxRateService tarafından her yenilemede yazılır;
+-- uygulama açılışında ağ erişimi yoksa son kurlar buradan okunur.
+CREATE TABLE IF NOT EXISTS fx_rates_history (
+    id             BIGSERIAL        PRIMARY KEY,
+    base_currency  VARCHAR(8)       NOT NULL,
+    quote_currency VARCHAR(8)       NOT NULL,
+    rate           DOUBLE PRECISION NOT NULL,
+    source         VARCHAR(16)      NOT NULL,
+    rate_time      TIMESTAMP        NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_fx_rates_history_pair_time
+    ON fx_rates_history (base_currency, quote_currency, rate_time DESC);
@@ -0,0 +1,12 @@
+-- Dakikalık mum verisi (isteğe bağlı, -Dprice.yahoo.captureCandles=true).
+-- Aynı (asset_id, bar_time) tekrar gelirse yoksayılır.
+CREATE TABLE IF NOT EXISTS ohlc_1m (
+    asset_id INTEGER          NOT NULL REFERENCES assets(id),
+    bar_time TIMESTAMP        NOT NULL,
+    open     DOUBLE PRECISION NOT NULL,
+    high     DOUBLE PRECISION NOT NULL,
+    low      DOUBLE PRECISION NOT NULL,
+    close    DOUBLE PRECISION NOT NULL,
+    volume   BIGINT           NOT NULL DEFAULT 0,
+    PRIMARY KEY (asset_id, bar_time)
+);
@@ -0,0 +1,27 @@
+-- portfolio_values için özet katmanları.
+--   portfolio_values        : ham kayıtlar, yalnızca son 24 saat tutulur
+--   resolution = 'HOURLY'   : saat başına son değer, util.PortfolioValueCompactor üretir
+--   resolution = 'DAILY'    : gün başına son değer, PortfolioValueDao.insert ile aynı ifadede güncellenir
+CREATE TABLE IF NOT EXISTS portfolio_value_rollups (
+    user_id      INTEGER          NOT NULL,
+    resolution   VARCHAR(8)       NOT NULL,
+    bucket_start TIMESTAMP        NOT NULL,
+    total_value  DOUBLE PRECISION NOT NULL,
+    last_at      TIMESTAMP        NOT NULL,
+    PRIMARY KEY (user_id, resolution, bucket_start)
+);
+
+-- Mevcut ham kayıtlardan ilk doldurma
+INSERT INTO portfolio_value_rollups (user_id, resolution, bucket_start, total_value, last_at)
+SELECT DISTINCT ON (user_id, date_trunc('day', calculated_at))
+       user_id, 'DAILY', date_trunc('day', calculated_at), total_value, calculated_at
+FROM portfolio_values
+ORDER BY user_id, date_trunc('day', calculated_at), calculated_at DESC, id DESC
+ON CONFLICT (user_id, resolution, bucket_start) DO NOTHING;
+
+INSERT INTO portfolio_value_rollups (user_id, resolution, bucket_start, total_value, last_at)
+SELECT DISTINCT ON (user_id, date_trunc('hour', calculated_at))
+       user_id, 'HOURLY', date_trunc('hour', calculated_at), total_value, calculated_at
+FROM portfolio_values
+ORDER BY user_id, date_trunc('hour', calculated_at), calculated_at DESC, id DESC
+ON CONFLICT (user_id, resolution, bucket_start) DO NOTHING;
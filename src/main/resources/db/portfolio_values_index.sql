@@ -0,0 +1,8 @@
+-- portfolio_values aralık sorguları ve keyset sayfalama için kapsayan indeks.
+-- listPage/getLastKRecords sorguları (user_id, calculated_at, id) sırasını doğrudan
+-- kullanır; total_value INCLUDE edildiği için tabloya gidilmeden (index-only scan) okunur.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_portfolio_values_user_time
+    ON portfolio_values (user_id, calculated_at, id)
+    INCLUDE (total_value);
+
+ANALYZE portfolio_values;
@@ -0,0 +1,25 @@
+-- Kullanıcı başına materyalize pozisyonlar.
+-- TradeDao.insert ve TradeDao.deleteAllByUserAndAsset tarafından trades ile aynı
+-- transaction içinde güncellenir. Ortalama maliyet = buy_notional / buy_qty.
+CREATE TABLE IF NOT EXISTS positions (
+    user_id      INTEGER   NOT NULL,
+    asset_id     INTEGER   NOT NULL REFERENCES assets(id),
+    net_qty      NUMERIC   NOT NULL DEFAULT 0,
+    buy_qty      NUMERIC   NOT NULL DEFAULT 0,
+    buy_notional NUMERIC   NOT NULL DEFAULT 0,
+    updated_at   TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (user_id, asset_id)
+);
+
+-- Mevcut işlemlerden ilk doldurma (util.PositionRebuilder rebuild ile aynı)
+INSERT INTO positions (user_id, asset_id, net_qty, buy_qty, buy_notional)
+SELECT user_id,
+       asset_id,
+       SUM(CASE WHEN trade_type = 'BUY'  THEN quantity
+                WHEN trade_type = 'SELL' THEN -quantity
+                ELSE 0 END),
+       SUM(CASE WHEN trade_type = 'BUY' THEN quantity ELSE 0 END),
+       SUM(CASE WHEN trade_type = 'BUY' THEN quantity * price ELSE 0 END)
+FROM trades
+GROUP BY user_id, asset_id
+ON CONFLICT (user_id, asset_id) DO NOTHING;